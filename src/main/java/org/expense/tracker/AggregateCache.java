@@ -0,0 +1,152 @@
+package org.expense.tracker;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Caches each user's ledger and aggregates (monthly series, category totals,
+ * balances) so moving between the dashboards does not run the same queries
+ * again. Entries expire after a TTL; the least recently used users are
+ * dropped beyond max-users, and the least recently used entries of a user
+ * beyond {@link #MAX_ENTRIES_PER_USER}.
+ *
+ * The services call {@link #invalidate(int)} after every committed write that
+ * changes a user's expenses, income or bank balance. A load that was running
+ * while the user was invalidated is returned to its caller but not cached, so
+ * it cannot put back data from before the write.
+ */
+@Component
+@ManagedResource(objectName = "org.expense.tracker:type=AggregateCache")
+public class AggregateCache {
+
+    private static final int MAX_ENTRIES_PER_USER = 32;
+
+    private final long ttlNanos;
+    private final Map<Integer, UserEntries> users;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public AggregateCache(@Value("${app.aggregate-cache.max-users:1000}") int maxUsers,
+                          @Value("${app.aggregate-cache.ttl:5m}") Duration ttl) {
+        this.ttlNanos = ttl.toNanos();
+        this.users = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, UserEntries> eldest) {
+                if (size() > maxUsers) {
+                    evictions.add(eldest.getValue().values.size());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached value for the user and key, or loads, caches and
+     * returns it. The loader runs outside the lock, so concurrent misses for
+     * the same key may each load.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(int userId, Object key, Supplier<T> loader) {
+        UserEntries entries;
+        synchronized (this) {
+            entries = users.computeIfAbsent(userId, id -> new UserEntries());
+            CachedValue cached = entries.values.get(key);
+            if (cached != null && System.nanoTime() - cached.loadedAt < ttlNanos) {
+                hits.increment();
+                return (T) cached.value;
+            }
+        }
+
+        misses.increment();
+        long loadedAt = System.nanoTime();
+        T value = loader.get();
+
+        synchronized (this) {
+            // Skip if the user was invalidated or evicted while loading
+            if (users.get(userId) == entries) {
+                entries.values.put(key, new CachedValue(value, loadedAt));
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Drops everything cached for the user. Call after the write is committed.
+     */
+    public synchronized void invalidate(int userId) {
+        users.remove(userId);
+        invalidations.increment();
+    }
+
+    @ManagedOperation
+    public synchronized void invalidateAll() {
+        users.clear();
+        invalidations.increment();
+    }
+
+    @ManagedAttribute
+    public long getHits() {
+        return hits.sum();
+    }
+
+    @ManagedAttribute
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    @ManagedAttribute
+    public double getHitRate() {
+        long total = getHits() + getMisses();
+        return total == 0 ? 0.0 : (double) getHits() / total;
+    }
+
+    @ManagedAttribute
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    @ManagedAttribute
+    public long getInvalidations() {
+        return invalidations.sum();
+    }
+
+    @ManagedAttribute
+    public synchronized int getCachedUsers() {
+        return users.size();
+    }
+
+    private class UserEntries {
+        private final Map<Object, CachedValue> values = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, CachedValue> eldest) {
+                if (size() > MAX_ENTRIES_PER_USER) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    private static class CachedValue {
+        private final Object value;
+        private final long loadedAt;
+
+        private CachedValue(Object value, long loadedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -1,12 +1,14 @@
 package org.expense.tracker;
 
 import com.vaadin.flow.component.page.AppShellConfigurator;
+import com.vaadin.flow.component.page.Push;
 import com.vaadin.flow.router.PageTitle;
 import com.vaadin.flow.server.PWA;
 import com.vaadin.flow.theme.Theme;
 import com.vaadin.flow.theme.lumo.Lumo;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * The entry point of the Spring Boot application.
@@ -16,9 +18,11 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
  *
  */
 @SpringBootApplication
+@EnableScheduling
 @PWA(name = "Finance Tracker", shortName = "Finance Tracker")
 @Theme(variant = Lumo.DARK)
 @PageTitle("Finance Tracker")
+@Push
 public class Application implements AppShellConfigurator {
 
     public static void main(String[] args) {
@@ -0,0 +1,122 @@
+package org.expense.tracker;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Non-blocking access to the read queries the dashboards use. Every call runs
+ * on its own virtual thread, so views can render right away and fill in data
+ * when the futures complete. The connection pool still bounds how many
+ * queries hit the database at once.
+ *
+ * The user id is passed in explicitly because the Vaadin session is not
+ * available on the worker threads. Results are shared through the
+ * {@link AggregateCache}, so the dashboards reuse each other's queries.
+ */
+@Service
+public class AsyncExpenseService {
+
+    private final ExpenseDAO expenseDAO;
+    private final AggregateCache cache;
+    private final LedgerAggregator aggregator;
+    private final ExpenseRollups rollups;
+    private final TopCategories topCategories;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public AsyncExpenseService(ExpenseDAO expenseDAO, AggregateCache cache, LedgerAggregator aggregator,
+                               ExpenseRollups rollups, TopCategories topCategories) {
+        this.expenseDAO = expenseDAO;
+        this.cache = cache;
+        this.aggregator = aggregator;
+        this.rollups = rollups;
+        this.topCategories = topCategories;
+    }
+
+    public CompletableFuture<BankBalance> getCurrentBankBalance(int userId) {
+        return supply(() -> cache.get(userId, ExpenseService.BANK_BALANCE,
+                () -> expenseDAO.getCurrentBankBalance(userId)));
+    }
+
+    public CompletableFuture<List<MonthlyTotal>> getMonthlyTotals(int userId, LocalDate fromMonth, LocalDate toMonth) {
+        return supply(() -> cache.get(userId, List.of("monthlyTotals", fromMonth, toMonth),
+                () -> List.copyOf(expenseDAO.getMonthlyTotals(userId, fromMonth, toMonth))));
+    }
+
+    /**
+     * Income, expenses and running balance per month with activity up to {@code toMonth}.
+     */
+    public CompletableFuture<List<MonthlyBalance>> getRunningBalance(int userId, LocalDate toMonth) {
+        return supply(() -> cache.get(userId, List.of("runningBalance", toMonth),
+                () -> List.copyOf(expenseDAO.getRunningBalance(userId, toMonth))));
+    }
+
+    /**
+     * Balance at the end of the day {@code date}, without loading the ledger.
+     */
+    public CompletableFuture<Long> getBalanceAsOf(int userId, LocalDate date) {
+        return supply(() -> cache.get(userId, ExpenseService.balanceAsOfKey(date),
+                () -> expenseDAO.getBalanceAsOf(userId, date)));
+    }
+
+    public CompletableFuture<List<CategoryTotal>> getCategoryTotals(int userId) {
+        return supply(() -> cache.get(userId, "categoryTotals",
+                () -> List.copyOf(expenseDAO.getCategoryTotals(userId))));
+    }
+
+    public CompletableFuture<Long> getCalculatedBalance(int userId) {
+        return supply(() -> cache.get(userId, ExpenseService.CALCULATED_BALANCE,
+                () -> expenseDAO.getCalculatedBalance(userId)));
+    }
+
+    /**
+     * Dashboard figures for the {@code months} months up to {@code currentMonth},
+     * aggregated in one pass over the user's ledger, in parallel chunks for large ledgers.
+     */
+    public CompletableFuture<DashboardMetrics> getDashboardMetrics(int userId, LocalDate currentMonth, int months) {
+        return supply(() -> cache.get(userId, ExpenseService.dashboardMetricsKey(currentMonth, months), () -> {
+            Ledger ledger = cache.get(userId, ExpenseService.LEDGER, () -> expenseDAO.loadLedger(userId));
+            return DashboardMetrics.compute(aggregator, ledger, expenseDAO.getAllIncome(userId), currentMonth, months);
+        }));
+    }
+
+    /**
+     * Income and expenses of the range in buckets of the given resolution, read
+     * from the user's {@link TimeRollup} in time proportional to the bucket count.
+     */
+    public CompletableFuture<List<TimeBucket>> getBuckets(int userId, TimeRollup.Resolution resolution,
+                                                          LocalDate from, LocalDate to) {
+        // Built from the database rather than the cached ledger, which may predate a write just patched in
+        return supply(() -> rollups.get(userId, to, () -> expenseDAO.loadLedger(userId), () -> expenseDAO.getAllIncome(userId))
+                .getBuckets(resolution, from, to));
+    }
+
+    /**
+     * The user's largest category of all time, or null when nothing was spent,
+     * read from a sketch that every write keeps up to date.
+     */
+    public CompletableFuture<String> getTopCategory(int userId) {
+        // Built from the database for the same reason as the rollups
+        return supply(() -> topCategories.getTopCategory(userId, null, () -> expenseDAO.loadLedger(userId)));
+    }
+
+    private <T> CompletableFuture<T> supply(Supplier<T> query) {
+        return CompletableFuture.supplyAsync(query, executor)
+                .whenComplete((result, error) -> {
+                    if (error != null) {
+                        error.printStackTrace();
+                    }
+                });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -1,5 +1,7 @@
 package org.expense.tracker;
 
+import com.vaadin.flow.component.Component;
+import com.vaadin.flow.component.UI;
 import com.vaadin.flow.component.charts.Chart;
 import com.vaadin.flow.component.charts.model.*;
 import com.vaadin.flow.component.html.H2;
@@ -13,92 +15,108 @@ import com.vaadin.flow.router.Route;
 import java.time.LocalDate;
 import java.time.format.TextStyle;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 @Route(value = "balance", layout = MainLayout.class)
 @PageTitle("Running Balance")
 public class BalanceChartView extends VerticalLayout {
 
-    public BalanceChartView() {
+    private final LoadingPlaceholder chartPlaceholder = new LoadingPlaceholder("400px");
+    private final VerticalLayout chartCard;
+    private VerticalLayout summaryCard;
+
+    public BalanceChartView(AsyncExpenseService expenseService) {
         setSizeFull();
         setPadding(true);
         setSpacing(true);
         getStyle().set("background", "var(--lumo-contrast-5pct)");
 
-        DBConnect db = new DBConnect();
-        db.connectToDatabase("expenseTracker", "postgres", "faris123");
-        ExpenseDAO dao = new ExpenseDAO(db.getConnection());
+        // Header
+        H2 title = new H2("📊 Running Balance Over Time");
+        title.getStyle()
+                .set("margin", "0 0 1.5rem 0")
+                .set("color", "var(--lumo-primary-text-color)")
+                .set("font-weight", "700")
+                .set("font-size", "2rem");
 
-        List<MainView.Expense> allExpenses = dao.getAllExpenses();
-        List<Income> allIncome = dao.getAllIncome();
+        // Enhanced summary card with blue gradient, placeholder values until the data arrives
+        summaryCard = createSkeletonSummaryCard("…");
 
-        TreeSet<LocalDate> months = new TreeSet<>();
+        // Chart card
+        chartCard = createChartCard(chartPlaceholder);
 
-        Map<LocalDate, Double> incomeMap = new HashMap<>();
-        for (Income income : allIncome) {
-            LocalDate month = income.getMonth().withDayOfMonth(1);
-            months.add(month);
-            incomeMap.put(month, incomeMap.getOrDefault(month, 0.0) + income.getAmount());
-        }
+        add(title, summaryCard, chartCard);
 
-        Map<LocalDate, Double> expenseMap = new HashMap<>();
-        for (MainView.Expense expense : allExpenses) {
-            LocalDate startMonth = expense.getDate().withDayOfMonth(1);
-
-            if (expense.getRecurring()) {
-                for (int i = 0; i < 36; i++) {
-                    LocalDate recurringMonth = "Monthly".equals(expense.getRecurrenceType())
-                            ? startMonth.plusMonths(i)
-                            : startMonth.plusYears(i);
-
-                    if (recurringMonth.isAfter(LocalDate.now().plusMonths(12))) break;
-
-                    months.add(recurringMonth);
-                    expenseMap.put(recurringMonth, expenseMap.getOrDefault(recurringMonth, 0.0) + expense.getAmount());
-                }
-            } else {
-                months.add(startMonth);
-                expenseMap.put(startMonth, expenseMap.getOrDefault(startMonth, 0.0) + expense.getAmount());
-            }
-        }
+        // The running balance (with recurring expenses expanded) is summed in the database
+        int userId = UserSession.getCurrentUserId();
+        UI ui = UI.getCurrent();
+        LocalDate lastMonth = LocalDate.now().withDayOfMonth(1).plusMonths(12);
+        CompletableFuture<List<MonthlyBalance>> runningBalance = expenseService.getRunningBalance(userId, lastMonth);
+        CompletableFuture<Long> currentBalance = expenseService.getBalanceAsOf(userId, LocalDate.now());
+        CompletableFuture<Void> loaded = CompletableFuture.allOf(runningBalance, currentBalance);
+        loaded.thenRun(ui.accessLater(() -> showBalance(runningBalance.join(), currentBalance.join()), null));
+        chartPlaceholder.showErrorIfFailed(loaded);
+        loaded.handle((result, error) -> Optional.ofNullable(error))
+                .thenAccept(ui.accessLater(error -> error.ifPresent(e -> {
+                    VerticalLayout failedCard = createSkeletonSummaryCard("—");
+                    replace(summaryCard, failedCard);
+                    summaryCard = failedCard;
+                }), null));
+    }
 
+    private void showBalance(List<MonthlyBalance> balances, long currentBalance) {
         List<String> monthLabels = new ArrayList<>();
         List<Double> balanceData = new ArrayList<>();
-        double runningBalance = 0.0;
-        double finalBalance = 0.0;
-        double maxBalance = Double.MIN_VALUE;
-        double minBalance = Double.MAX_VALUE;
-
-        for (LocalDate month : months) {
-            double income = incomeMap.getOrDefault(month, 0.0);
-            double expense = expenseMap.getOrDefault(month, 0.0);
-            runningBalance += income - expense;
+        long maxBalance = balances.isEmpty() ? 0 : Long.MIN_VALUE;
+        long minBalance = balances.isEmpty() ? 0 : Long.MAX_VALUE;
 
+        for (MonthlyBalance balance : balances) {
+            LocalDate month = balance.getMonth();
             monthLabels.add(month.getMonth().getDisplayName(TextStyle.SHORT, Locale.ENGLISH) + " " + month.getYear());
-            balanceData.add(runningBalance);
+            balanceData.add(Money.toDouble(balance.getBalanceCents()));
 
-            maxBalance = Math.max(maxBalance, runningBalance);
-            minBalance = Math.min(minBalance, runningBalance);
-            finalBalance = runningBalance;
+            maxBalance = Math.max(maxBalance, balance.getBalanceCents());
+            minBalance = Math.min(minBalance, balance.getBalanceCents());
         }
 
-        // Header
-        H2 title = new H2("📊 Running Balance Over Time");
-        title.getStyle()
-                .set("margin", "0 0 1.5rem 0")
-                .set("color", "var(--lumo-primary-text-color)")
-                .set("font-weight", "700")
-                .set("font-size", "2rem");
+        VerticalLayout loadedCard = createBalanceSummaryCard(currentBalance, maxBalance, minBalance, balances.size());
+        replace(summaryCard, loadedCard);
+        summaryCard = loadedCard;
 
-        // Enhanced summary card with blue gradient
-        VerticalLayout summaryCard = createBalanceSummaryCard(finalBalance, maxBalance, minBalance, months.size());
+        chartCard.replace(chartPlaceholder, createBalanceChart(monthLabels, balanceData));
+    }
 
-        // Chart card
-        VerticalLayout chartCard = createChartCard(monthLabels, balanceData);
+    // Shown with "…" while loading and "—" if the load failed
+    private VerticalLayout createSkeletonSummaryCard(String value) {
+        return createBalanceSummaryCard(
+                createBlueMiniStatCard("Current Balance", value, true),
+                createBlueMiniStatCard("Highest Balance", value, true),
+                createBlueMiniStatCard("Lowest Balance", value, true),
+                createBlueMiniStatCard("Balance Range", value, true),
+                createBlueMiniStatCard("Months Tracked", value, true));
+    }
 
-        add(title, summaryCard, chartCard);
+    private VerticalLayout createBalanceSummaryCard(long currentBalance, long maxBalance, long minBalance, int monthsTracked) {
+        // Current Balance
+        VerticalLayout currentCard = createBlueMiniStatCard("Current Balance", Money.format(currentBalance), currentBalance >= 0);
+
+        // Max Balance
+        VerticalLayout maxCard = createBlueMiniStatCard("Highest Balance", Money.format(maxBalance), true);
+
+        // Min Balance
+        VerticalLayout minCard = createBlueMiniStatCard("Lowest Balance", Money.format(minBalance), minBalance >= 0);
+
+        // Balance Range
+        long range = maxBalance - minBalance;
+        VerticalLayout rangeCard = createBlueMiniStatCard("Balance Range", Money.format(range), true);
+
+        // Months Tracked
+        VerticalLayout monthsCard = createBlueMiniStatCard("Months Tracked", String.valueOf(monthsTracked), true);
+
+        return createBalanceSummaryCard(currentCard, maxCard, minCard, rangeCard, monthsCard);
     }
 
-    private VerticalLayout createBalanceSummaryCard(double currentBalance, double maxBalance, double minBalance, int monthsTracked) {
+    private VerticalLayout createBalanceSummaryCard(VerticalLayout... statCards) {
         VerticalLayout card = new VerticalLayout();
         card.getStyle()
                 .set("background", "linear-gradient(135deg, var(--lumo-primary-color) 0%, var(--lumo-primary-color-50pct) 100%)")
@@ -122,23 +140,7 @@ public class BalanceChartView extends VerticalLayout {
         statsLayout.setJustifyContentMode(HorizontalLayout.JustifyContentMode.CENTER);
         statsLayout.setSpacing(true);
 
-        // Current Balance
-        VerticalLayout currentCard = createBlueMiniStatCard("Current Balance", "€" + String.format("%.2f", currentBalance), currentBalance >= 0);
-
-        // Max Balance
-        VerticalLayout maxCard = createBlueMiniStatCard("Highest Balance", "€" + String.format("%.2f", maxBalance), true);
-
-        // Min Balance
-        VerticalLayout minCard = createBlueMiniStatCard("Lowest Balance", "€" + String.format("%.2f", minBalance), minBalance >= 0);
-
-        // Balance Range
-        double range = maxBalance - minBalance;
-        VerticalLayout rangeCard = createBlueMiniStatCard("Balance Range", "€" + String.format("%.2f", range), true);
-
-        // Months Tracked
-        VerticalLayout monthsCard = createBlueMiniStatCard("Months Tracked", String.valueOf(monthsTracked), true);
-
-        statsLayout.add(currentCard, maxCard, minCard, rangeCard, monthsCard);
+        statsLayout.add(statCards);
         card.add(summaryTitle, statsLayout);
 
         return card;
@@ -187,7 +189,7 @@ public class BalanceChartView extends VerticalLayout {
         return miniCard;
     }
 
-    private VerticalLayout createChartCard(List<String> monthLabels, List<Double> balanceData) {
+    private VerticalLayout createChartCard(Component content) {
         VerticalLayout card = new VerticalLayout();
         card.getStyle()
                 .set("background", "var(--lumo-base-color)")
@@ -204,6 +206,11 @@ public class BalanceChartView extends VerticalLayout {
                 .set("color", "var(--lumo-secondary-text-color)")
                 .set("text-align", "center");
 
+        card.add(cardTitle, content);
+        return card;
+    }
+
+    private Chart createBalanceChart(List<String> monthLabels, List<Double> balanceData) {
         Chart chart = new Chart(ChartType.LINE);
         Configuration conf = chart.getConfiguration();
         conf.setTitle("Running Balance Over Time");
@@ -226,7 +233,6 @@ public class BalanceChartView extends VerticalLayout {
                 .set("border-radius", "12px")
                 .set("overflow", "hidden");
 
-        card.add(cardTitle, chart);
-        return card;
+        return chart;
     }
-}
\ No newline at end of file
+}
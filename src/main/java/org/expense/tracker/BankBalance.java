@@ -4,21 +4,21 @@ import java.time.LocalDateTime;
 
 public class BankBalance {
     private int id;
-    private double amount;
+    private long amountCents;
     private LocalDateTime lastUpdated;
 
     public BankBalance() {}
 
-    public BankBalance(double amount) {
-        this.amount = amount;
+    public BankBalance(long amountCents) {
+        this.amountCents = amountCents;
         this.lastUpdated = LocalDateTime.now();
     }
 
     public int getId() { return id; }
     public void setId(int id) { this.id = id; }
 
-    public double getAmount() { return amount; }
-    public void setAmount(double amount) { this.amount = amount; }
+    public long getAmountCents() { return amountCents; }
+    public void setAmountCents(long amountCents) { this.amountCents = amountCents; }
 
     public LocalDateTime getLastUpdated() { return lastUpdated; }
     public void setLastUpdated(LocalDateTime lastUpdated) { this.lastUpdated = lastUpdated; }
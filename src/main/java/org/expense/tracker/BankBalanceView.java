@@ -17,27 +17,24 @@ import com.vaadin.flow.router.Route;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
 
 @Route(value = "bank-balance", layout = MainLayout.class)
 @PageTitle("Bank Balance")
 public class BankBalanceView extends VerticalLayout {
 
-    private final ExpenseDAO dao;
+    private final ExpenseService expenseService;
     private Span currentBalanceDisplay;
     private Span lastUpdatedDisplay;
     private NumberField newBalanceField;
 
-    public BankBalanceView() {
+    public BankBalanceView(ExpenseService expenseService) {
+        this.expenseService = expenseService;
+
         setSizeFull();
         setPadding(true);
         setSpacing(true);
         getStyle().set("background", "var(--lumo-contrast-5pct)");
 
-        DBConnect db = new DBConnect();
-        db.connectToDatabase("expenseTracker", "postgres", "faris123");
-        dao = new ExpenseDAO(db.getConnection());
-
         // Header
         H2 title = new H2("🏦 Bank Balance Management");
         title.getStyle()
@@ -77,8 +74,8 @@ public class BankBalanceView extends VerticalLayout {
                 .set("font-size", "1.5rem");
 
         // Get balance analytics
-        BankBalance currentBalance = dao.getCurrentBankBalance();
-        double calculatedBalance = calculateCurrentBalance();
+        BankBalance currentBalance = expenseService.getCurrentBankBalance();
+        long calculatedBalance = calculateBalance(currentBalance);
 
         // Create stats layout
         HorizontalLayout statsLayout = new HorizontalLayout();
@@ -87,15 +84,15 @@ public class BankBalanceView extends VerticalLayout {
         statsLayout.setSpacing(true);
 
         // Current Bank Balance
-        double bankAmount = currentBalance != null ? currentBalance.getAmount() : 0.0;
-        VerticalLayout bankCard = createBlueMiniStatCard("Bank Balance", "€" + String.format("%.2f", bankAmount), bankAmount >= 0);
+        long bankAmount = currentBalance != null ? currentBalance.getAmountCents() : 0;
+        VerticalLayout bankCard = createBlueMiniStatCard("Bank Balance", Money.format(bankAmount), bankAmount >= 0);
 
         // Calculated Balance (from income/expenses)
-        VerticalLayout calcCard = createBlueMiniStatCard("Calculated Balance", "€" + String.format("%.2f", calculatedBalance), calculatedBalance >= 0);
+        VerticalLayout calcCard = createBlueMiniStatCard("Calculated Balance", Money.format(calculatedBalance), calculatedBalance >= 0);
 
         // Difference
-        double difference = bankAmount - calculatedBalance;
-        VerticalLayout diffCard = createBlueMiniStatCard("Difference", "€" + String.format("%.2f", difference), difference >= 0);
+        long difference = bankAmount - calculatedBalance;
+        VerticalLayout diffCard = createBlueMiniStatCard("Difference", Money.format(difference), difference >= 0);
 
         // Last Updated
         String lastUpdated = currentBalance != null ?
@@ -246,10 +243,9 @@ public class BankBalanceView extends VerticalLayout {
             return;
         }
 
-        double newAmount = newBalanceField.getValue();
-        BankBalance bankBalance = new BankBalance(newAmount);
+        BankBalance bankBalance = new BankBalance(Money.toCents(newBalanceField.getValue()));
 
-        dao.saveOrUpdateBankBalance(bankBalance);
+        expenseService.saveOrUpdateBankBalance(bankBalance);
         refreshDisplays();
         newBalanceField.clear();
 
@@ -261,13 +257,13 @@ public class BankBalanceView extends VerticalLayout {
     }
 
     private void refreshDisplays() {
-        BankBalance currentBalance = dao.getCurrentBankBalance();
+        BankBalance currentBalance = expenseService.getCurrentBankBalance();
 
         if (currentBalance != null) {
-            currentBalanceDisplay.setText("€" + String.format("%.2f", currentBalance.getAmount()));
+            currentBalanceDisplay.setText(Money.format(currentBalance.getAmountCents()));
 
             // Update color based on balance
-            if (currentBalance.getAmount() >= 0) {
+            if (currentBalance.getAmountCents() >= 0) {
                 currentBalanceDisplay.getStyle().set("color", "var(--lumo-success-color)");
             } else {
                 currentBalanceDisplay.getStyle().set("color", "var(--lumo-error-color)");
@@ -282,25 +278,23 @@ public class BankBalanceView extends VerticalLayout {
         }
     }
 
-    private double calculateCurrentBalance() {
-        // Get all income and expenses to calculate theoretical balance
-        List<Income> allIncome = dao.getAllIncome();
-        List<MainView.Expense> allExpenses = dao.getAllExpenses();
-
-        double totalIncome = allIncome.stream().mapToDouble(Income::getAmount).sum();
-        double totalExpenses = allExpenses.stream().mapToDouble(MainView.Expense::getAmount).sum();
-
-        return totalIncome - totalExpenses;
+    private long calculateBalance(BankBalance bankBalance) {
+        // Theoretical balance from income and expenses as of when the bank balance was entered,
+        // so the difference compares like with like
+        if (bankBalance == null || bankBalance.getLastUpdated() == null) {
+            return expenseService.getCalculatedBalance();
+        }
+        return expenseService.getBalanceAsOf(bankBalance.getLastUpdated().toLocalDate());
     }
 
-    private String getBalanceStatus(double bankBalance, double calculatedBalance) {
-        double difference = Math.abs(bankBalance - calculatedBalance);
+    private String getBalanceStatus(long bankBalance, long calculatedBalance) {
+        long difference = Math.abs(bankBalance - calculatedBalance);
 
-        if (difference <= 10) {
+        if (difference <= 10_00) {
             return "✅ Accurate";
-        } else if (difference <= 50) {
+        } else if (difference <= 50_00) {
             return "⚠️ Minor Gap";
-        } else if (difference <= 200) {
+        } else if (difference <= 200_00) {
             return "🔶 Moderate Gap";
         } else {
             return "❌ Large Gap";
@@ -0,0 +1,19 @@
+package org.expense.tracker;
+
+public class CategoryTotal {
+    private String category;
+    private long totalCents;
+
+    public CategoryTotal() {}
+
+    public CategoryTotal(String category, long totalCents) {
+        this.category = category;
+        this.totalCents = totalCents;
+    }
+
+    public String getCategory() { return category; }
+    public void setCategory(String category) { this.category = category; }
+
+    public long getTotalCents() { return totalCents; }
+    public void setTotalCents(long totalCents) { this.totalCents = totalCents; }
+}
@@ -1,27 +1,35 @@
 package org.expense.tracker;
 
+import com.vaadin.flow.component.UI;
 import com.vaadin.flow.component.orderedlayout.VerticalLayout;
 import com.vaadin.flow.router.Route;
 import com.vaadin.flow.router.PageTitle;
 import com.vaadin.flow.component.charts.Chart;
 import com.vaadin.flow.component.charts.model.*;
 
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
 
 @Route(value = "chart", layout = MainLayout.class)
 @PageTitle("Expense Chart")
 public class ChartView extends VerticalLayout {
 
-    public ChartView() {
+    public ChartView(AsyncExpenseService expenseService) {
         setSizeFull();
         setPadding(true);
 
-        DBConnect dbConnect = new DBConnect();
-        dbConnect.connectToDatabase("expenseTracker", "postgres", "faris123");
-        ExpenseDAO expenseDAO = new ExpenseDAO(dbConnect.getConnection());
+        LoadingPlaceholder placeholder = new LoadingPlaceholder("400px");
+        add(placeholder);
+
+        int userId = UserSession.getCurrentUserId();
+        UI ui = UI.getCurrent();
+        CompletableFuture<List<CategoryTotal>> categoryTotals = expenseService.getCategoryTotals(userId);
+        categoryTotals.thenAccept(ui.accessLater(totals -> replace(placeholder, createChart(totals)), null));
+        placeholder.showErrorIfFailed(categoryTotals);
+    }
 
+    private Chart createChart(List<CategoryTotal> categoryTotals) {
         Chart chart = new Chart(ChartType.PIE);
         Configuration conf = chart.getConfiguration();
         chart.getConfiguration().getChart().setStyledMode(true);
@@ -38,19 +46,12 @@ public class ChartView extends VerticalLayout {
         plotOptions.setDataLabels(dataLabels);
         conf.setPlotOptions(plotOptions);
 
-        List<MainView.Expense> allExpenses = expenseDAO.getAllExpenses();
-
-        Map<String, Double> categoryTotals = new HashMap<>();
-        for (MainView.Expense expense : allExpenses) {
-            categoryTotals.merge(expense.getCategory(), expense.getAmount(), Double::sum);
-        }
-
         DataSeries series = new DataSeries();
-        for (Map.Entry<String, Double> entry : categoryTotals.entrySet()) {
-            series.add(new DataSeriesItem(entry.getKey(), entry.getValue()));
+        for (CategoryTotal total : categoryTotals) {
+            series.add(new DataSeriesItem(total.getCategory(), Money.toDouble(total.getTotalCents())));
         }
 
         conf.setSeries(series);
-        add(chart);
+        return chart;
     }
 }
@@ -0,0 +1,286 @@
+package org.expense.tracker;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Reads an uploaded expense CSV one record at a time, validates it and
+ * re-emits valid rows as normalized CSV for PostgreSQL's COPY:
+ * {@code date,amount,category,description,recurrence_type}.
+ * Only the current record is held in memory, so the file is never materialized.
+ * Comma- and semicolon-separated files are both accepted.
+ *
+ * The first record is treated as a header when it names the columns
+ * (date, amount, category, description, recurrence_type); otherwise
+ * columns are expected in that order.
+ *
+ * How the sign of an amount is read is chosen by {@link AmountSigns}: in the
+ * app's own format expenses are positive, in a signed bank export they are
+ * negative and credits (salary, refunds, transfers in) are skipped, so they
+ * never end up in the ledger as spending.
+ */
+public class CsvExpenseReader extends Reader {
+
+    private static final int MAX_REPORTED_ERRORS = 10;
+    private static final int MAX_CATEGORY_LENGTH = 100;
+    private static final DateTimeFormatter GERMAN_DATE = DateTimeFormatter.ofPattern("dd.MM.yyyy");
+    // NUMERIC(14, 2) holds at most 12 integer digits
+    private static final BigDecimal AMOUNT_LIMIT = BigDecimal.TEN.pow(12);
+
+    public enum AmountSigns {
+        /** Expenses are positive amounts, negative ones are rejected. */
+        EXPENSES_POSITIVE,
+        /** Bank export: debits are negative and imported as expenses, credits are skipped. */
+        EXPENSES_NEGATIVE
+    }
+
+    private final BufferedReader source;
+    private final AmountSigns amountSigns;
+    private String pending = "";
+    private int position;
+    private long lineNumber;
+    private boolean headerChecked;
+    private char delimiter;
+
+    private int dateColumn = 0;
+    private int amountColumn = 1;
+    private int categoryColumn = 2;
+    private int descriptionColumn = 3;
+    private int recurrenceColumn = 4;
+
+    private long acceptedCount;
+    private long rejectedCount;
+    private final List<String> errors = new ArrayList<>();
+
+    public CsvExpenseReader(BufferedReader source, AmountSigns amountSigns) {
+        this.source = source;
+        this.amountSigns = amountSigns;
+    }
+
+    @Override
+    public int read(char[] buffer, int offset, int length) throws IOException {
+        while (position >= pending.length()) {
+            String next = nextRow();
+            if (next == null) {
+                return -1;
+            }
+            pending = next;
+            position = 0;
+        }
+
+        int count = Math.min(length, pending.length() - position);
+        pending.getChars(position, position + count, buffer, offset);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        source.close();
+    }
+
+    public long getAcceptedCount() { return acceptedCount; }
+
+    public long getRejectedCount() { return rejectedCount; }
+
+    public List<String> getErrors() { return errors; }
+
+    private String nextRow() throws IOException {
+        List<String> fields;
+        while ((fields = readRecord()) != null) {
+            if (!headerChecked) {
+                headerChecked = true;
+                if (isHeader(fields)) {
+                    mapColumns(fields);
+                    continue;
+                }
+            }
+
+            String row = normalize(fields);
+            if (row != null) {
+                acceptedCount++;
+                return row;
+            }
+        }
+        return null;
+    }
+
+    private List<String> readRecord() throws IOException {
+        String line = source.readLine();
+        while (line != null && line.isBlank()) {
+            lineNumber++;
+            line = source.readLine();
+        }
+        if (line == null) {
+            return null;
+        }
+        lineNumber++;
+        if (delimiter == 0) {
+            // Semicolon-separated exports use ',' as the decimal separator
+            delimiter = line.chars().filter(c -> c == ';').count() > line.chars().filter(c -> c == ',').count() ? ';' : ',';
+        }
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        int i = 0;
+        while (true) {
+            if (i == line.length()) {
+                if (!quoted) {
+                    break;
+                }
+                // Quoted field spans a line break
+                String continuation = source.readLine();
+                if (continuation == null) {
+                    break;
+                }
+                lineNumber++;
+                field.append('\n');
+                line = continuation;
+                i = 0;
+                continue;
+            }
+
+            char c = line.charAt(i++);
+            if (quoted) {
+                if (c == '"' && i < line.length() && line.charAt(i) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == delimiter) {
+                fields.add(field.toString().trim());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString().trim());
+        return fields;
+    }
+
+    private boolean isHeader(List<String> fields) {
+        return fields.stream().anyMatch(f -> f.equalsIgnoreCase("date") || f.equalsIgnoreCase("amount"));
+    }
+
+    private void mapColumns(List<String> header) {
+        dateColumn = amountColumn = categoryColumn = descriptionColumn = recurrenceColumn = -1;
+        for (int i = 0; i < header.size(); i++) {
+            switch (header.get(i).toLowerCase(Locale.ROOT)) {
+                case "date" -> dateColumn = i;
+                case "amount" -> amountColumn = i;
+                case "category" -> categoryColumn = i;
+                case "description" -> descriptionColumn = i;
+                case "recurrence_type", "recurrence", "recurring" -> recurrenceColumn = i;
+                default -> { }
+            }
+        }
+    }
+
+    private String normalize(List<String> fields) {
+        LocalDate date = parseDate(field(fields, dateColumn));
+        if (date == null) {
+            return reject("invalid date '" + field(fields, dateColumn) + "'");
+        }
+
+        BigDecimal amount = parseAmount(field(fields, amountColumn));
+        if (amount == null) {
+            return reject("invalid amount '" + field(fields, amountColumn) + "'");
+        }
+        if (amountSigns == AmountSigns.EXPENSES_NEGATIVE) {
+            if (amount.signum() > 0) {
+                return reject("credit of " + amount.toPlainString() + " is not an expense");
+            }
+            amount = amount.negate();
+        } else if (amount.signum() < 0) {
+            return reject("negative amount " + amount.toPlainString() + " in a file of positive expenses");
+        }
+        if (amount.compareTo(AMOUNT_LIMIT) >= 0) {
+            return reject("amount " + amount.toPlainString() + " is too large");
+        }
+
+        String category = field(fields, categoryColumn);
+        if (category.isEmpty() || category.length() > MAX_CATEGORY_LENGTH) {
+            return reject("category must be 1-" + MAX_CATEGORY_LENGTH + " characters");
+        }
+
+        String recurrence = field(fields, recurrenceColumn).toLowerCase(Locale.ROOT);
+        String recurrenceType;
+        switch (recurrence) {
+            case "", "none", "no" -> recurrenceType = "";
+            case "monthly" -> recurrenceType = "Monthly";
+            case "annually", "yearly" -> recurrenceType = "Annually";
+            default -> {
+                return reject("unknown recurrence '" + recurrence + "'");
+            }
+        }
+
+        String description = field(fields, descriptionColumn);
+
+        // Unquoted empty fields are NULL for COPY, quoted ones are empty strings
+        return date + "," + amount.toPlainString() + "," + quote(category) + ","
+                + (description.isEmpty() ? "" : quote(description)) + ","
+                + recurrenceType + "\n";
+    }
+
+    private String reject(String reason) {
+        rejectedCount++;
+        if (errors.size() < MAX_REPORTED_ERRORS) {
+            errors.add("Line " + lineNumber + ": " + reason);
+        }
+        return null;
+    }
+
+    private static String field(List<String> fields, int column) {
+        return column >= 0 && column < fields.size() ? fields.get(column) : "";
+    }
+
+    private static LocalDate parseDate(String value) {
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            try {
+                return LocalDate.parse(value, GERMAN_DATE);
+            } catch (DateTimeParseException ignored) {
+                return null;
+            }
+        }
+    }
+
+    private static BigDecimal parseAmount(String value) {
+        String cleaned = value.replace("€", "").replace(" ", "");
+        // Whichever of ',' and '.' comes last is the decimal separator; the other groups thousands
+        int comma = cleaned.lastIndexOf(',');
+        int dot = cleaned.lastIndexOf('.');
+        if (comma > dot) {
+            cleaned = cleaned.replace(".", "").replace(',', '.');
+        } else {
+            cleaned = cleaned.replace(",", "");
+        }
+
+        try {
+            BigDecimal amount = new BigDecimal(cleaned).setScale(2, RoundingMode.HALF_UP);
+            return amount.signum() == 0 ? null : amount;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static String quote(String value) {
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,160 @@
+package org.expense.tracker;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The figures the expense and dashboard views show for a window of months
+ * ending with the current one: expenses, income and net per month, the
+ * current month's total and count, and the monthly average. The top
+ * category comes from {@link TopCategories} instead.
+ *
+ * Everything is computed in one pass over the {@link Ledger}. Each row adds
+ * its occurrences inside the window in constant time: a one-off expense to
+ * its month, a yearly one to every twelfth month, and a monthly one once to
+ * a running sum that carries it into every later month of the window. Large
+ * ledgers can be split into chunks that are aggregated in parallel by the
+ * {@link LedgerAggregator} and merged.
+ */
+public final class DashboardMetrics {
+
+    private final LocalDate firstMonth;
+    private final long[] expenseCents;
+    private final long[] incomeCents;
+    private final int currentMonthCount;
+
+    private DashboardMetrics(LocalDate firstMonth, long[] expenseCents, long[] incomeCents, int currentMonthCount) {
+        this.firstMonth = firstMonth;
+        this.expenseCents = expenseCents;
+        this.incomeCents = incomeCents;
+        this.currentMonthCount = currentMonthCount;
+    }
+
+    /**
+     * Aggregates the {@code months} months up to and including the month of {@code currentMonth}.
+     */
+    public static DashboardMetrics compute(Ledger ledger, List<Income> income, LocalDate currentMonth, int months) {
+        Partial partial = new Partial(currentMonth, months);
+        partial.accumulate(ledger, 0, ledger.size());
+        return finish(partial, income, currentMonth, months);
+    }
+
+    /**
+     * Same as {@link #compute(Ledger, List, LocalDate, int)}, with the rows
+     * split into chunks and aggregated in parallel when the ledger is large.
+     */
+    public static DashboardMetrics compute(LedgerAggregator aggregator, Ledger ledger, List<Income> income,
+                                           LocalDate currentMonth, int months) {
+        Partial partial = aggregator.aggregate(ledger, () -> new Partial(currentMonth, months),
+                (chunk, fromRow, toRow) -> chunk.accumulate(ledger, fromRow, toRow), Partial::merge);
+        return finish(partial, income, currentMonth, months);
+    }
+
+    private static DashboardMetrics finish(Partial partial, List<Income> income,
+                                           LocalDate currentMonth, int months) {
+        long[] expenseCents = partial.expenseCents;
+        long monthly = 0;
+        for (int i = 0; i < months; i++) {
+            monthly += partial.monthlyStarts[i];
+            expenseCents[i] += monthly;
+        }
+
+        long[] incomeCents = new long[months];
+        for (Income entry : income) {
+            int month = Recurrence.monthIndex(entry.getMonth());
+            if (month >= partial.first && month <= partial.last) {
+                incomeCents[month - partial.first] += entry.getAmountCents();
+            }
+        }
+
+        LocalDate firstMonth = currentMonth.withDayOfMonth(1).minusMonths(months - 1);
+        return new DashboardMetrics(firstMonth, expenseCents, incomeCents, partial.currentMonthCount);
+    }
+
+    /**
+     * Income, expenses and net for every month of the window, oldest first.
+     */
+    public List<MonthlyTotal> getMonthlyTotals() {
+        List<MonthlyTotal> totals = new ArrayList<>(expenseCents.length);
+        for (int i = 0; i < expenseCents.length; i++) {
+            totals.add(new MonthlyTotal(firstMonth.plusMonths(i), incomeCents[i], expenseCents[i]));
+        }
+        return totals;
+    }
+
+    public long getCurrentMonthExpensesCents() { return expenseCents[expenseCents.length - 1]; }
+
+    public long getCurrentMonthIncomeCents() { return incomeCents[incomeCents.length - 1]; }
+
+    /**
+     * Number of expenses in the current month, recurring ones included.
+     */
+    public int getCurrentMonthCount() { return currentMonthCount; }
+
+    /**
+     * Average expenses per month over the whole window.
+     */
+    public long getAverageExpensesCents() {
+        long total = 0;
+        for (long cents : expenseCents) {
+            total += cents;
+        }
+        return total / expenseCents.length;
+    }
+
+    /**
+     * Sums and counts of a range of ledger rows. Partials of
+     * different chunks are merged by adding them up.
+     */
+    static final class Partial {
+        private final int first;
+        private final int last;
+        private final long[] expenseCents;
+        // Monthly expenses are added where they start counting and carried forward in finish()
+        private final long[] monthlyStarts;
+        private int currentMonthCount;
+
+        Partial(LocalDate currentMonth, int months) {
+            this.last = Recurrence.monthIndex(currentMonth);
+            this.first = last - months + 1;
+            this.expenseCents = new long[months];
+            this.monthlyStarts = new long[months];
+        }
+
+        void accumulate(Ledger ledger, int fromRow, int toRow) {
+            for (int row = fromRow; row < toRow; row++) {
+                Recurrence recurrence = ledger.getRecurrence(row);
+                int start = ledger.getMonthIndex(row);
+                long cents = ledger.getCents(row);
+
+                int month = recurrence.firstOccurrence(start, first);
+                if (month > last) {
+                    continue;
+                }
+                switch (recurrence) {
+                    case NONE -> expenseCents[month - first] += cents;
+                    case MONTHLY -> monthlyStarts[month - first] += cents;
+                    case YEARLY -> {
+                        for (; month <= last; month += 12) {
+                            expenseCents[month - first] += cents;
+                        }
+                    }
+                }
+
+                if (recurrence.appliesTo(start, last)) {
+                    currentMonthCount++;
+                }
+            }
+        }
+
+        Partial merge(Partial other) {
+            for (int i = 0; i < expenseCents.length; i++) {
+                expenseCents[i] += other.expenseCents[i];
+                monthlyStarts[i] += other.monthlyStarts[i];
+            }
+            currentMonthCount += other.currentMonthCount;
+            return this;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package org.expense.tracker;
 
+import com.vaadin.flow.component.UI;
 import com.vaadin.flow.component.board.Board;
 import com.vaadin.flow.component.board.Row;
 import com.vaadin.flow.component.charts.Chart;
@@ -15,45 +16,23 @@ import com.vaadin.flow.router.Route;
 import java.time.LocalDate;
 import java.time.format.TextStyle;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
 
 @Route(value = "", layout = MainLayout.class)
 @PageTitle("Dashboard")
 public class DashboardView extends VerticalLayout {
 
-    public DashboardView() {
+    private final VerticalLayout leftChart;
+    private final VerticalLayout rightChart;
+    private final LoadingPlaceholder incomeExpensePlaceholder = new LoadingPlaceholder("400px");
+    private final LoadingPlaceholder piePlaceholder = new LoadingPlaceholder("400px");
+    private VerticalLayout summaryCard;
+
+    public DashboardView(AsyncExpenseService expenseService) {
         setPadding(true);
         setSpacing(true);
         getStyle().set("background", "var(--lumo-contrast-5pct)");
 
-        DBConnect db = new DBConnect();
-        db.connectToDatabase("expenseTracker", "postgres", "faris123");
-        ExpenseDAO dao = new ExpenseDAO(db.getConnection());
-
-        List<MainView.Expense> expenses = dao.getAllExpenses();
-        List<Income> incomes = dao.getAllIncome();
-        BankBalance bankBalance = dao.getCurrentBankBalance();
-
-        LocalDate now = LocalDate.now().withDayOfMonth(1);
-        List<LocalDate> last12Months = new ArrayList<>();
-        for (int i = 11; i >= 0; i--) {
-            last12Months.add(now.minusMonths(i));
-        }
-
-        double monthlyIncome = getIncomeForMonth(incomes, now);
-        double monthlyExpenses = getExpensesForMonth(expenses, now);
-        double totalIncome = incomes.stream().mapToDouble(Income::getAmount).sum();
-        double totalExpenses = expenses.stream().mapToDouble(MainView.Expense::getAmount).sum();
-        double calculatedBalance = totalIncome - totalExpenses;
-        double currentBankBalance = bankBalance != null ? bankBalance.getAmount() : 0.0;
-
-        String topCategory = expenses.stream()
-                .collect(Collectors.groupingBy(MainView.Expense::getCategory, Collectors.summingDouble(MainView.Expense::getAmount)))
-                .entrySet().stream()
-                .max(Map.Entry.comparingByValue())
-                .map(Map.Entry::getKey)
-                .orElse("None");
-
         // Header
         H2 dashboardTitle = new H2("📊 Financial Dashboard");
         dashboardTitle.getStyle()
@@ -62,8 +41,8 @@ public class DashboardView extends VerticalLayout {
                 .set("font-weight", "700")
                 .set("font-size", "2rem");
 
-        // Enhanced summary card with blue gradient
-        VerticalLayout summaryCard = createSummaryCard(currentBankBalance, calculatedBalance, monthlyIncome, monthlyExpenses, topCategory);
+        // Enhanced summary card with blue gradient, placeholder values until the data arrives
+        summaryCard = createSkeletonSummaryCard("…");
 
         // Stats cards
 
@@ -73,7 +52,7 @@ public class DashboardView extends VerticalLayout {
         chartsLayout.setSpacing(true);
 
         // Income/Expense chart (left side)
-        VerticalLayout leftChart = new VerticalLayout();
+        leftChart = new VerticalLayout();
         leftChart.getStyle()
                 .set("background", "var(--lumo-base-color)")
                 .set("border-radius", "12px")
@@ -87,11 +66,10 @@ public class DashboardView extends VerticalLayout {
                 .set("font-size", "1.3rem")
                 .set("color", "var(--lumo-secondary-text-color)");
 
-        Chart incomeExpenseChart = createIncomeExpenseBalanceChart(last12Months, incomes, expenses);
-        leftChart.add(chartTitle, incomeExpenseChart);
+        leftChart.add(chartTitle, incomeExpensePlaceholder);
 
         // Pie chart (right side)
-        VerticalLayout rightChart = new VerticalLayout();
+        rightChart = new VerticalLayout();
         rightChart.getStyle()
                 .set("background", "var(--lumo-base-color)")
                 .set("border-radius", "12px")
@@ -105,15 +83,95 @@ public class DashboardView extends VerticalLayout {
                 .set("font-size", "1.3rem")
                 .set("color", "var(--lumo-secondary-text-color)");
 
-        Chart pieChart = createExpensePieChart(expenses);
-        rightChart.add(pieTitle, pieChart);
+        rightChart.add(pieTitle, piePlaceholder);
 
         chartsLayout.add(leftChart, rightChart);
 
         add(dashboardTitle, summaryCard, chartsLayout);
+
+        loadData(expenseService);
     }
 
-    private VerticalLayout createSummaryCard(double bankBalance, double calculatedBalance, double monthlyIncome, double monthlyExpenses, String topCategory) {
+    /**
+     * Starts the queries in the background and pushes each part of the page
+     * to the browser as soon as its data is available.
+     */
+    private void loadData(AsyncExpenseService expenseService) {
+        int userId = UserSession.getCurrentUserId();
+        UI ui = UI.getCurrent();
+
+        LocalDate now = LocalDate.now().withDayOfMonth(1);
+
+        // Monthly figures come from one pass over the cached ledger, category totals from the database
+        // and the top category from the user's category sketch
+        CompletableFuture<BankBalance> bankBalance = expenseService.getCurrentBankBalance(userId);
+        CompletableFuture<DashboardMetrics> metrics = expenseService.getDashboardMetrics(userId, now, 12);
+        CompletableFuture<List<CategoryTotal>> categoryTotals = expenseService.getCategoryTotals(userId);
+        CompletableFuture<Long> calculatedBalance = expenseService.getCalculatedBalance(userId);
+        CompletableFuture<String> topCategory = expenseService.getTopCategory(userId);
+
+        metrics.thenAccept(ui.accessLater(loaded ->
+                leftChart.replace(incomeExpensePlaceholder, createIncomeExpenseBalanceChart(loaded.getMonthlyTotals())), null));
+
+        categoryTotals.thenAccept(ui.accessLater(totals ->
+                rightChart.replace(piePlaceholder, createExpensePieChart(totals)), null));
+
+        incomeExpensePlaceholder.showErrorIfFailed(metrics);
+        piePlaceholder.showErrorIfFailed(categoryTotals);
+
+        CompletableFuture<Void> summary = CompletableFuture.allOf(bankBalance, metrics, calculatedBalance, topCategory);
+        summary.thenRun(ui.accessLater(() -> {
+                    DashboardMetrics thisMonth = metrics.join();
+                    BankBalance balance = bankBalance.join();
+
+                    long currentBankBalance = balance != null ? balance.getAmountCents() : 0;
+                    String top = topCategory.join() != null ? topCategory.join() : "None";
+
+                    VerticalLayout loadedCard = createSummaryCard(currentBankBalance, calculatedBalance.join(),
+                            thisMonth.getCurrentMonthIncomeCents(), thisMonth.getCurrentMonthExpensesCents(), top);
+                    replace(summaryCard, loadedCard);
+                    summaryCard = loadedCard;
+                }, null));
+
+        summary.handle((result, error) -> Optional.ofNullable(error))
+                .thenAccept(ui.accessLater(error -> error.ifPresent(e -> {
+                    VerticalLayout failedCard = createSkeletonSummaryCard("—");
+                    replace(summaryCard, failedCard);
+                    summaryCard = failedCard;
+                }), null));
+    }
+
+    private VerticalLayout createSummaryCard(long bankBalance, long calculatedBalance, long monthlyIncome, long monthlyExpenses, String topCategory) {
+        // Bank Balance
+        VerticalLayout bankCard = createBlueMiniStatCard("Bank Balance", Money.format(bankBalance), bankBalance >= 0);
+
+        // Monthly Net
+        long monthlyNet = monthlyIncome - monthlyExpenses;
+        VerticalLayout netCard = createBlueMiniStatCard("Monthly Net", Money.format(monthlyNet), monthlyNet >= 0);
+
+        // Monthly Income
+        VerticalLayout incomeCard = createBlueMiniStatCard("Monthly Income", Money.format(monthlyIncome), true);
+
+        // Monthly Expenses
+        VerticalLayout expenseCard = createBlueMiniStatCard("Monthly Expenses", Money.format(monthlyExpenses), false);
+
+        // Top Category
+        VerticalLayout categoryCard = createBlueMiniStatCard("Top Category", topCategory, true);
+
+        return createSummaryCard(bankCard, incomeCard, expenseCard, netCard, categoryCard);
+    }
+
+    // Shown with "…" while loading and "—" if the load failed
+    private VerticalLayout createSkeletonSummaryCard(String value) {
+        return createSummaryCard(
+                createBlueMiniStatCard("Bank Balance", value, true),
+                createBlueMiniStatCard("Monthly Income", value, true),
+                createBlueMiniStatCard("Monthly Expenses", value, true),
+                createBlueMiniStatCard("Monthly Net", value, true),
+                createBlueMiniStatCard("Top Category", value, true));
+    }
+
+    private VerticalLayout createSummaryCard(VerticalLayout... statCards) {
         VerticalLayout card = new VerticalLayout();
         card.getStyle()
                 .set("background", "linear-gradient(135deg, var(--lumo-primary-color) 0%, var(--lumo-primary-color-50pct) 100%)")
@@ -137,23 +195,7 @@ public class DashboardView extends VerticalLayout {
         statsLayout.setJustifyContentMode(HorizontalLayout.JustifyContentMode.CENTER);
         statsLayout.setSpacing(true);
 
-        // Bank Balance
-        VerticalLayout bankCard = createBlueMiniStatCard("Bank Balance", "€" + round(bankBalance), bankBalance >= 0);
-
-        // Monthly Net
-        double monthlyNet = monthlyIncome - monthlyExpenses;
-        VerticalLayout netCard = createBlueMiniStatCard("Monthly Net", "€" + round(monthlyNet), monthlyNet >= 0);
-
-        // Monthly Income
-        VerticalLayout incomeCard = createBlueMiniStatCard("Monthly Income", "€" + round(monthlyIncome), true);
-
-        // Monthly Expenses
-        VerticalLayout expenseCard = createBlueMiniStatCard("Monthly Expenses", "€" + round(monthlyExpenses), false);
-
-        // Top Category
-        VerticalLayout categoryCard = createBlueMiniStatCard("Top Category", topCategory, true);
-
-        statsLayout.add(bankCard, incomeCard, expenseCard, netCard, categoryCard);
+        statsLayout.add(statCards);
         card.add(summaryTitle, statsLayout);
 
         return card;
@@ -264,7 +306,7 @@ public class DashboardView extends VerticalLayout {
         return card;
     }
 
-    private Chart createExpensePieChart(List<MainView.Expense> expenses) {
+    private Chart createExpensePieChart(List<CategoryTotal> categoryTotals) {
         Chart chart = new Chart(ChartType.PIE);
         Configuration conf = chart.getConfiguration();
         chart.getConfiguration().getChart().setStyledMode(true);
@@ -280,14 +322,9 @@ public class DashboardView extends VerticalLayout {
         plotOptions.setDataLabels(dataLabels);
         conf.setPlotOptions(plotOptions);
 
-        Map<String, Double> categoryTotals = new HashMap<>();
-        for (MainView.Expense expense : expenses) {
-            categoryTotals.merge(expense.getCategory(), expense.getAmount(), Double::sum);
-        }
-
         DataSeries series = new DataSeries();
-        for (Map.Entry<String, Double> entry : categoryTotals.entrySet()) {
-            series.add(new DataSeriesItem(entry.getKey(), entry.getValue()));
+        for (CategoryTotal total : categoryTotals) {
+            series.add(new DataSeriesItem(total.getCategory(), Money.toDouble(total.getTotalCents())));
         }
 
         conf.setSeries(series);
@@ -295,45 +332,19 @@ public class DashboardView extends VerticalLayout {
         return chart;
     }
 
-    private double getIncomeForMonth(List<Income> incomes, LocalDate month) {
-        return incomes.stream()
-                .filter(i -> i.getMonth().getMonth().equals(month.getMonth()) && i.getMonth().getYear() == month.getYear())
-                .mapToDouble(Income::getAmount)
-                .sum();
-    }
-
-    private double getExpensesForMonth(List<MainView.Expense> expenses, LocalDate month) {
-        return expenses.stream()
-                .filter(e -> {
-                    if (!e.getRecurring()) {
-                        return e.getDate().getMonth().equals(month.getMonth()) &&
-                                e.getDate().getYear() == month.getYear();
-                    }
-                    return "Monthly".equalsIgnoreCase(e.getRecurrenceType()) ||
-                            ("Annually".equalsIgnoreCase(e.getRecurrenceType()) &&
-                                    e.getDate().getMonth().equals(month.getMonth()));
-                })
-                .mapToDouble(MainView.Expense::getAmount)
-                .sum();
-    }
-
-    private Chart createIncomeExpenseBalanceChart(List<LocalDate> months, List<Income> incomes, List<MainView.Expense> expenses) {
-        List<String> monthLabels = months.stream()
-                .map(m -> m.getMonth().getDisplayName(TextStyle.SHORT, Locale.ENGLISH) + " " + m.getYear())
+    private Chart createIncomeExpenseBalanceChart(List<MonthlyTotal> monthlyTotals) {
+        List<String> monthLabels = monthlyTotals.stream()
+                .map(t -> t.getMonth().getMonth().getDisplayName(TextStyle.SHORT, Locale.ENGLISH) + " " + t.getMonth().getYear())
                 .toList();
 
         ListSeries incomeSeries = new ListSeries("Income");
         ListSeries expenseSeries = new ListSeries("Expenses");
         ListSeries balanceSeries = new ListSeries("Net Balance");
 
-        for (LocalDate month : months) {
-            double income = getIncomeForMonth(incomes, month);
-            double exp = getExpensesForMonth(expenses, month);
-            double bal = income - exp;
-
-            incomeSeries.addData(income);
-            expenseSeries.addData(exp);
-            balanceSeries.addData(bal);
+        for (MonthlyTotal total : monthlyTotals) {
+            incomeSeries.addData(Money.toDouble(total.getIncomeCents()));
+            expenseSeries.addData(Money.toDouble(total.getExpensesCents()));
+            balanceSeries.addData(Money.toDouble(total.getNetCents()));
         }
 
         Chart chart = new Chart(ChartType.COLUMN);
@@ -359,8 +370,4 @@ public class DashboardView extends VerticalLayout {
 
         return chart;
     }
-
-    private String round(double value) {
-        return String.format("%.2f", value);
-    }
 }
\ No newline at end of file
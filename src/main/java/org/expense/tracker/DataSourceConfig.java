@@ -0,0 +1,58 @@
+package org.expense.tracker;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jmx.export.MBeanExporter;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Configuration
+public class DataSourceConfig {
+
+    /**
+     * The primary pool, configured from spring.datasource.* exactly like the
+     * pool Spring Boot would create on its own.
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties, ObjectProvider<MBeanExporter> mBeanExporter) {
+        // Hikari registers its own MBeans (register-mbeans), so Spring must not export the pool a second time
+        mBeanExporter.ifUnique(exporter -> exporter.addExcludedBean("primaryDataSource"));
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    /**
+     * Routes DAO reads to the replicas in app.datasource.replica-urls. Each
+     * replica gets a read-only pool with the same settings and credentials as
+     * the primary. Without replica URLs every connection comes from the primary.
+     */
+    @Bean
+    @Primary
+    public RoutingDataSource routingDataSource(HikariDataSource primaryDataSource,
+                                               @Value("${app.datasource.replica-urls:}") List<String> replicaUrls,
+                                               @Value("${app.datasource.read-your-writes-window:5s}") Duration readYourWritesWindow) {
+        List<DataSource> replicas = new ArrayList<>();
+        for (String url : replicaUrls) {
+            if (url.isBlank()) {
+                continue;
+            }
+            // Started lazily, so an unreachable replica does not stop startup
+            HikariDataSource replica = new HikariDataSource();
+            primaryDataSource.copyStateTo(replica);
+            replica.setJdbcUrl(url.trim());
+            replica.setPoolName(primaryDataSource.getPoolName() + "-replica-" + (replicas.size() + 1));
+            replica.setReadOnly(true);
+            replicas.add(replica);
+        }
+        return new RoutingDataSource(primaryDataSource, replicas, readYourWritesWindow);
+    }
+}
@@ -0,0 +1,24 @@
+package org.expense.tracker;
+
+/**
+ * Told by ExpenseDAO about committed writes, so in-memory views of a user's
+ * data can be patched instead of rebuilt. Calls come after the commit, on
+ * the writing thread.
+ */
+interface ExpenseChangeListener {
+
+    /**
+     * The user's expenses changed as described by {@code change}.
+     */
+    void expensesChanged(int userId, ExpenseSummaryChange change);
+
+    /**
+     * The user's income changed.
+     */
+    void incomeChanged(int userId);
+
+    /**
+     * Anyone's data may have changed, for example after a partition was archived.
+     */
+    void invalidateAll();
+}
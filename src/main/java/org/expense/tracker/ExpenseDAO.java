@@ -1,77 +1,296 @@
 package org.expense.tracker;
 
-import org.expense.tracker.BankBalance;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
 import java.sql.*;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
+@Repository
 public class ExpenseDAO {
 
-    private final Connection connection;
-
-    public ExpenseDAO(Connection connection) {
-        this.connection = connection;
-        createTablesIfNotExists();
-    }
-
-    private void createTablesIfNotExists() {
-        // Update existing tables to include user_id
-        String[] updateQueries = {
-                """
-            DO $$
-            BEGIN
-                IF NOT EXISTS (SELECT 1 FROM information_schema.columns 
-                              WHERE table_name='expenses' AND column_name='user_id') THEN
-                    ALTER TABLE expenses ADD COLUMN user_id INTEGER REFERENCES users(id);
-                END IF;
-            END $$;
-            """,
-                """
-            DO $$
-            BEGIN
-                IF NOT EXISTS (SELECT 1 FROM information_schema.columns 
-                              WHERE table_name='income' AND column_name='user_id') THEN
-                    ALTER TABLE income ADD COLUMN user_id INTEGER REFERENCES users(id);
-                END IF;
-            END $$;
-            """,
-                """
-            DO $$
-            BEGIN
-                IF NOT EXISTS (SELECT 1 FROM information_schema.columns 
-                              WHERE table_name='bank_balance' AND column_name='user_id') THEN
-                    ALTER TABLE bank_balance ADD COLUMN user_id INTEGER REFERENCES users(id);
-                END IF;
-            END $$;
-            """
-        };
-
-        try (Statement stmt = connection.createStatement()) {
-            for (String query : updateQueries) {
-                stmt.execute(query);
+    private static final String EXPENSE_COLUMNS = "SELECT id, amount, category, description, date, recurring, recurrence_type";
+    private static final Map<String, String> SORT_COLUMNS = Map.of(
+            "date", "date",
+            "amount", "amount",
+            "category", "category"
+    );
+    private static final Pattern PLAN_ROWS = Pattern.compile("rows=(\\d+)");
+    // Must match the expression of expenses_search_trgm_idx (V7) for the index to be used
+    private static final String SEARCH_TEXT = "(coalesce(description, '') || ' ' || coalesce(category, ''))";
+    private static final Pattern LIKE_SPECIAL = Pattern.compile("[\\\\%_]");
+    // Containing search matches ranked by similarity, older ones are listed by date
+    private static final int RANKED_SEARCH_MATCHES = 1000;
+
+    // Everything the summary tables need, as stored
+    private static final String RETURNING_SUMMARY_COLUMNS = " RETURNING id, amount, category, date, recurrence_type";
+    // One SQL text for any number of rows, so chunks of every size share a
+    // single server-side statement instead of filling the driver's cache
+    private static final String INSERT_EXPENSES = """
+            INSERT INTO expenses (amount, category, description, date, recurring, recurrence_type, user_id)
+            SELECT amount, category, description, date, recurring, recurrence_type, ?
+            FROM unnest(?::numeric[], ?::text[], ?::text[], ?::date[], ?::boolean[], ?::text[])
+                 WITH ORDINALITY AS batch (amount, category, description, date, recurring, recurrence_type, ord)
+            ORDER BY ord""" + RETURNING_SUMMARY_COLUMNS;
+    private static final int EXPORT_FETCH_SIZE = 1000;
+
+    private final RoutingDataSource dataSource;
+    private final StatementCache statementCache;
+    private final List<ExpenseChangeListener> listeners;
+    private final int batchSize;
+
+    public ExpenseDAO(RoutingDataSource dataSource, StatementCache statementCache, List<ExpenseChangeListener> listeners,
+                      @Value("${app.jdbc.batch-size:500}") int batchSize) {
+        this.dataSource = dataSource;
+        this.statementCache = statementCache;
+        this.listeners = listeners;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    public int saveExpense(MainView.Expense expense) {
+        int userId = UserSession.getCurrentUserId();
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                ExpenseSummaryChange summaryChange = new ExpenseSummaryChange();
+                List<Integer> ids = insertExpenses(connection, userId, List.of(expense), summaryChange);
+                summaryChange.apply(connection, statementCache, userId);
+                connection.commit();
+                dataSource.recordWrite(userId);
+                expensesChanged(userId, summaryChange);
+                return ids.isEmpty() ? -1 : ids.get(0);
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
             }
         } catch (SQLException e) {
             e.printStackTrace();
         }
+        return -1;
     }
 
-    public int saveExpense(MainView.Expense expense) {
-        String sql = "INSERT INTO expenses (amount, category, description, date, recurring, recurrence_type, user_id) VALUES (?, ?, ?, ?, ?, ?, ?) RETURNING id";
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setDouble(1, expense.getAmount());
-            stmt.setString(2, expense.getCategory());
-            stmt.setString(3, expense.getDescription());
-            stmt.setDate(4, Date.valueOf(expense.getDate()));
-            stmt.setBoolean(5, expense.getRecurring());
-            stmt.setString(6, expense.getRecurrenceType());
-            stmt.setInt(7, UserSession.getCurrentUserId());
+    /**
+     * Inserts many expenses in one transaction. Rows are sent as array
+     * parameters of one INSERT ... SELECT FROM unnest statement, up to
+     * {@code app.jdbc.batch-size} rows at a time, so a whole batch costs one
+     * round trip. Returns the generated ids in the
+     * order of the input list, or an empty list if the transaction was rolled back.
+     */
+    public List<Integer> saveExpenses(List<MainView.Expense> expenses) {
+        if (expenses.isEmpty()) {
+            return new ArrayList<>();
+        }
 
-            ResultSet rs = stmt.executeQuery();
-            if (rs.next()) {
-                return rs.getInt("id");
+        int userId = UserSession.getCurrentUserId();
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                ExpenseSummaryChange summaryChange = new ExpenseSummaryChange();
+                List<Integer> ids = insertExpenses(connection, userId, expenses, summaryChange);
+                summaryChange.apply(connection, statementCache, userId);
+                connection.commit();
+                dataSource.recordWrite(userId);
+                expensesChanged(userId, summaryChange);
+                return ids;
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return new ArrayList<>();
+    }
+
+    /**
+     * Applies queued writes, possibly for several users, in one transaction
+     * and in list order, so a whole group costs a single commit. Consecutive
+     * inserts of the same user share one array INSERT. Generated ids are set
+     * on the inserted expenses once the transaction has committed. Unlike the
+     * single-write methods, failures are thrown so the caller can report them.
+     */
+    public void applyWrites(List<ExpenseWrite> writes) throws SQLException {
+        Map<Integer, ExpenseSummaryChange> summaryChanges = new TreeMap<>();
+        Map<MainView.Expense, Integer> insertedIds = new IdentityHashMap<>();
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                int index = 0;
+                while (index < writes.size()) {
+                    ExpenseWrite write = writes.get(index);
+                    int userId = write.getUserId();
+                    ExpenseSummaryChange summaryChange = summaryChanges.computeIfAbsent(userId, id -> new ExpenseSummaryChange());
+
+                    switch (write.getType()) {
+                        case INSERT -> {
+                            List<MainView.Expense> run = new ArrayList<>();
+                            while (index < writes.size()
+                                    && writes.get(index).getType() == ExpenseWrite.Type.INSERT
+                                    && writes.get(index).getUserId() == userId) {
+                                run.add(writes.get(index++).getExpense());
+                            }
+                            List<Integer> ids = insertExpenses(connection, userId, run, summaryChange);
+                            for (int i = 0; i < run.size(); i++) {
+                                insertedIds.put(run.get(i), ids.get(i));
+                            }
+                            continue;
+                        }
+                        case UPDATE -> updateExpense(connection, userId, write.getExpense(), summaryChange);
+                        case DELETE -> deleteExpense(connection, userId, write.getExpenseId(), summaryChange);
+                    }
+                    index++;
+                }
+
+                for (Map.Entry<Integer, ExpenseSummaryChange> entry : summaryChanges.entrySet()) {
+                    entry.getValue().apply(connection, statementCache, entry.getKey());
+                }
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                // Turning auto-commit back on would otherwise commit the partial group
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+
+        insertedIds.forEach(MainView.Expense::setId);
+        summaryChanges.keySet().forEach(dataSource::recordWrite);
+        summaryChanges.forEach(this::expensesChanged);
+    }
+
+    /**
+     * Inserts the expenses in array chunks and returns their ids in input order.
+     */
+    private List<Integer> insertExpenses(Connection connection, int userId, List<MainView.Expense> expenses,
+                                         ExpenseSummaryChange summaryChange) throws SQLException {
+        List<Integer> ids = new ArrayList<>(expenses.size());
+        for (int from = 0; from < expenses.size(); from += batchSize) {
+            List<MainView.Expense> chunk = expenses.subList(from, Math.min(from + batchSize, expenses.size()));
+            int size = chunk.size();
+            BigDecimal[] amounts = new BigDecimal[size];
+            String[] categories = new String[size];
+            String[] descriptions = new String[size];
+            Date[] dates = new Date[size];
+            Boolean[] recurring = new Boolean[size];
+            String[] recurrenceTypes = new String[size];
+            for (int i = 0; i < size; i++) {
+                MainView.Expense expense = chunk.get(i);
+                amounts[i] = Money.toBigDecimal(expense.getAmountCents());
+                categories[i] = expense.getCategory();
+                descriptions[i] = expense.getDescription();
+                dates[i] = Date.valueOf(expense.getDate());
+                recurring[i] = expense.getRecurring();
+                recurrenceTypes[i] = expense.getRecurrenceType();
+            }
+
+            try (PreparedStatement stmt = statementCache.prepare(connection, INSERT_EXPENSES)) {
+                stmt.setInt(1, userId);
+                stmt.setArray(2, connection.createArrayOf("numeric", amounts));
+                stmt.setArray(3, connection.createArrayOf("text", categories));
+                stmt.setArray(4, connection.createArrayOf("text", descriptions));
+                stmt.setArray(5, connection.createArrayOf("date", dates));
+                stmt.setArray(6, connection.createArrayOf("bool", recurring));
+                stmt.setArray(7, connection.createArrayOf("text", recurrenceTypes));
+
+                // Ids are drawn from the sequence in input order (ORDER BY ord), so
+                // sorting them restores it whatever order RETURNING uses
+                List<Integer> chunkIds = new ArrayList<>(size);
+                ResultSet rs = stmt.executeQuery();
+                while (rs.next()) {
+                    chunkIds.add(rs.getInt("id"));
+                    summaryChange.add(rs);
+                }
+                Collections.sort(chunkIds);
+                ids.addAll(chunkIds);
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Bulk-loads expenses for a user with COPY. The CSV stream
+     * (date, amount, category, description, recurrence_type) is copied into a
+     * transaction-local staging table and merged into {@code expenses} with a
+     * single INSERT ... SELECT. Returns the number of imported rows, or -1 if
+     * the import failed and was rolled back.
+     */
+    public long importExpenses(int userId, Reader csv) {
+        String createStaging = """
+                CREATE TEMP TABLE expense_import (
+                    date DATE NOT NULL,
+                    amount NUMERIC(14, 2) NOT NULL,
+                    category VARCHAR(100) NOT NULL,
+                    description TEXT,
+                    recurrence_type VARCHAR(20)
+                ) ON COMMIT DROP
+                """;
+        String copySql = "COPY expense_import (date, amount, category, description, recurrence_type) FROM STDIN WITH (FORMAT csv)";
+        String mergeSql = """
+                INSERT INTO expenses (amount, category, description, date, recurring, recurrence_type, user_id)
+                SELECT amount, category, description, date, recurrence_type IS NOT NULL, recurrence_type, ?
+                FROM expense_import
+                """;
+        // The summaries only need one row per day, category and recurrence
+        String importedTotalsSql = """
+                SELECT date, category, recurrence_type, sum(amount) AS amount, count(*) AS count
+                FROM expense_import
+                GROUP BY 1, 2, 3
+                """;
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                try (Statement stmt = connection.createStatement()) {
+                    stmt.execute(createStaging);
+                }
+
+                CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+                copyManager.copyIn(copySql, csv);
+
+                long imported;
+                try (PreparedStatement stmt = statementCache.prepare(connection, mergeSql)) {
+                    stmt.setInt(1, userId);
+                    imported = stmt.executeLargeUpdate();
+                }
+
+                ExpenseSummaryChange summaryChange = new ExpenseSummaryChange();
+                try (Statement stmt = connection.createStatement();
+                     ResultSet rs = stmt.executeQuery(importedTotalsSql)) {
+                    while (rs.next()) {
+                        summaryChange.add(rs.getDate("date").toLocalDate(), rs.getString("category"),
+                                rs.getString("recurrence_type"), Money.getCents(rs, "amount"), rs.getLong("count"));
+                    }
+                }
+                summaryChange.apply(connection, statementCache, userId);
+                connection.commit();
+                dataSource.recordWrite(userId);
+                expensesChanged(userId, summaryChange);
+                return imported;
+            } catch (SQLException | IOException e) {
+                connection.rollback();
+                throw new SQLException("Expense import failed", e);
+            } finally {
+                connection.setAutoCommit(true);
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -79,55 +298,262 @@ public class ExpenseDAO {
         return -1;
     }
 
-    public void updateExpense(MainView.Expense expense) {
-        String sql = "UPDATE expenses SET amount = ?, category = ?, description = ?, date = ?, recurring = ?, recurrence_type = ? WHERE id = ? AND user_id = ?";
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setDouble(1, expense.getAmount());
+    /**
+     * Returns false if the update failed and was rolled back.
+     */
+    public boolean updateExpense(MainView.Expense expense) {
+        int userId = UserSession.getCurrentUserId();
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                ExpenseSummaryChange summaryChange = new ExpenseSummaryChange();
+                updateExpense(connection, userId, expense, summaryChange);
+                summaryChange.apply(connection, statementCache, userId);
+                connection.commit();
+                dataSource.recordWrite(userId);
+                expensesChanged(userId, summaryChange);
+                return true;
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return false;
+    }
+
+    private void updateExpense(Connection connection, int userId, MainView.Expense expense,
+                               ExpenseSummaryChange summaryChange) throws SQLException {
+        String selectSql = "SELECT amount, category, date, recurrence_type FROM expenses WHERE id = ? AND user_id = ? FOR UPDATE";
+        String sql = "UPDATE expenses SET amount = ?, category = ?, description = ?, date = ?, recurring = ?, recurrence_type = ? WHERE id = ? AND user_id = ?"
+                + RETURNING_SUMMARY_COLUMNS;
+
+        // The old values come out of the summaries, the new ones go in
+        try (PreparedStatement stmt = statementCache.prepare(connection, selectSql)) {
+            stmt.setInt(1, expense.getId());
+            stmt.setInt(2, userId);
+            ResultSet rs = stmt.executeQuery();
+            if (rs.next()) {
+                summaryChange.remove(rs);
+            }
+        }
+        try (PreparedStatement stmt = statementCache.prepare(connection, sql)) {
+            Money.setCents(stmt, 1, expense.getAmountCents());
             stmt.setString(2, expense.getCategory());
             stmt.setString(3, expense.getDescription());
             stmt.setDate(4, Date.valueOf(expense.getDate()));
             stmt.setBoolean(5, expense.getRecurring());
             stmt.setString(6, expense.getRecurrenceType());
             stmt.setInt(7, expense.getId());
-            stmt.setInt(8, UserSession.getCurrentUserId());
-            stmt.executeUpdate();
+            stmt.setInt(8, userId);
+            ResultSet rs = stmt.executeQuery();
+            if (rs.next()) {
+                summaryChange.add(rs);
+            }
+        }
+    }
+
+    /**
+     * Returns false if the delete failed and was rolled back.
+     */
+    public boolean deleteExpense(int id) {
+        int userId = UserSession.getCurrentUserId();
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                ExpenseSummaryChange summaryChange = new ExpenseSummaryChange();
+                deleteExpense(connection, userId, id, summaryChange);
+                summaryChange.apply(connection, statementCache, userId);
+                connection.commit();
+                dataSource.recordWrite(userId);
+                expensesChanged(userId, summaryChange);
+                return true;
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
         } catch (SQLException e) {
             e.printStackTrace();
         }
+        return false;
     }
 
-    public void deleteExpense(int id) {
-        String sql = "DELETE FROM expenses WHERE id = ? AND user_id = ?";
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+    private void deleteExpense(Connection connection, int userId, int id,
+                               ExpenseSummaryChange summaryChange) throws SQLException {
+        String sql = "DELETE FROM expenses WHERE id = ? AND user_id = ?" + RETURNING_SUMMARY_COLUMNS;
+        try (PreparedStatement stmt = statementCache.prepare(connection, sql)) {
             stmt.setInt(1, id);
-            stmt.setInt(2, UserSession.getCurrentUserId());
-            stmt.executeUpdate();
-        } catch (SQLException e) {
-            e.printStackTrace();
+            stmt.setInt(2, userId);
+            ResultSet rs = stmt.executeQuery();
+            if (rs.next()) {
+                summaryChange.remove(rs);
+            }
         }
     }
 
     public List<MainView.Expense> getAllExpenses() {
         List<MainView.Expense> expenses = new ArrayList<>();
         String sql = "SELECT * FROM expenses WHERE user_id = ? ORDER BY date DESC";
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setInt(1, UserSession.getCurrentUserId());
+        int userId = UserSession.getCurrentUserId();
+        try (Connection connection = dataSource.getReadConnection(userId);
+             PreparedStatement stmt = statementCache.prepare(connection, sql)) {
+            stmt.setInt(1, userId);
+            ResultSet rs = stmt.executeQuery();
+
+            while (rs.next()) {
+                expenses.add(mapExpense(rs));
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return expenses;
+    }
+
+    /**
+     * Loads the user's expenses into a columnar {@link Ledger} in one pass
+     * over a cursor, reading only the columns the ledger holds.
+     */
+    public Ledger loadLedger(int userId) {
+        String sql = "SELECT date, amount, category, recurrence_type FROM expenses WHERE user_id = ? ORDER BY date";
+        Ledger.Builder ledger = new Ledger.Builder();
+        try {
+            streamRows(sql, userId, rs -> ledger.add(rs.getDate("date").toLocalDate(), Money.getCents(rs, "amount"),
+                    rs.getString("category"), rs.getString("recurrence_type")));
+        } catch (SQLException | IOException e) {
+            e.printStackTrace();
+            return new Ledger.Builder().build();
+        }
+        return ledger.build();
+    }
+
+    /**
+     * Returns one page of the current user's expenses using keyset pagination.
+     * Rows are ordered by the sort column and then id, in the same direction,
+     * and the page starts after the row {@code after} (or at the top when null).
+     * {@code skip} rows are skipped after that anchor, which lets callers jump
+     * a short distance from the closest known anchor instead of scanning from
+     * the start of the ledger.
+     */
+    public List<MainView.Expense> getExpensesPage(String sortProperty, boolean descending, MainView.Expense after, int skip, int limit) {
+        String column = SORT_COLUMNS.get(sortProperty);
+        if (column == null) {
+            throw new IllegalArgumentException("Unsupported sort property: " + sortProperty);
+        }
+        String direction = descending ? "DESC" : "ASC";
+
+        StringBuilder sql = new StringBuilder(EXPENSE_COLUMNS + " FROM expenses WHERE user_id = ?");
+        if (after != null) {
+            sql.append(" AND (").append(column).append(", id) ").append(descending ? "<" : ">").append(" (?, ?)");
+            if (column.equals("date")) {
+                // Same bound on the plain column, which the planner can prune partitions with
+                sql.append(" AND date ").append(descending ? "<=" : ">=").append(" ?");
+            }
+        }
+        sql.append(" ORDER BY ").append(column).append(' ').append(direction)
+                .append(", id ").append(direction)
+                .append(" LIMIT ? OFFSET ?");
+
+        List<MainView.Expense> expenses = new ArrayList<>();
+        int userId = UserSession.getCurrentUserId();
+        try (Connection connection = dataSource.getReadConnection(userId);
+             PreparedStatement stmt = statementCache.prepare(connection, sql.toString())) {
+            int index = 1;
+            stmt.setInt(index++, userId);
+            if (after != null) {
+                switch (column) {
+                    case "date" -> stmt.setDate(index++, Date.valueOf(after.getDate()));
+                    // Bound as NUMERIC so the comparison stays on the indexed column type
+                    case "amount" -> Money.setCents(stmt, index++, after.getAmountCents());
+                    default -> stmt.setString(index++, after.getCategory());
+                }
+                stmt.setInt(index++, after.getId());
+                if (column.equals("date")) {
+                    stmt.setDate(index++, Date.valueOf(after.getDate()));
+                }
+            }
+            stmt.setInt(index++, limit);
+            stmt.setInt(index, skip);
+
             ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                expenses.add(mapExpense(rs));
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return expenses;
+    }
+
+    /**
+     * One page of the current user's expenses whose description or category
+     * contains {@code text}, so word prefixes match too. The newest
+     * RANKED_SEARCH_MATCHES of them come first, most similar to {@code text}
+     * first, so whole words beat prefixes; older ones follow newest first. If
+     * nothing contains it, the page holds the expenses with a word close
+     * enough to {@code text} to be a typo instead, most similar first.
+     *
+     * Both run on the trigram index from V7, which only narrows the search
+     * for texts of at least three characters. Ranking is bounded to the
+     * newest matches so common words stay fast on large ledgers; fuzzy
+     * matches are only searched for when there are no exact ones.
+     */
+    public List<MainView.Expense> searchExpenses(String text, int offset, int limit) {
+        String sql = """
+                WITH recent AS (
+                    %1$s FROM expenses
+                    WHERE user_id = ? AND %2$s ILIKE ?
+                    ORDER BY date DESC, id DESC
+                    LIMIT greatest(%3$d, ?)
+                ), containing AS (
+                    SELECT *, row_number() OVER (ORDER BY recency > %3$d, similarity DESC, date DESC, id DESC) AS position
+                    FROM (
+                        SELECT *, strict_word_similarity(?, %2$s) AS similarity,
+                               row_number() OVER (ORDER BY date DESC, id DESC) AS recency
+                        FROM recent
+                    ) scored
+                ), resembling AS (
+                    %1$s, strict_word_similarity(?, %2$s) AS similarity FROM expenses
+                    WHERE user_id = ? AND ? <<%% %2$s
+                      AND NOT EXISTS (SELECT 1 FROM expenses WHERE user_id = ? AND %2$s ILIKE ?)
+                    ORDER BY similarity DESC, date DESC, id DESC
+                    LIMIT ? OFFSET ?
+                )
+                -- At most one of them has rows
+                SELECT id, amount, category, description, date, recurring, recurrence_type, similarity, position
+                FROM containing
+                WHERE position > ? AND position <= ?
+                UNION ALL
+                SELECT *, 0 FROM resembling
+                ORDER BY position, similarity DESC, date DESC, id DESC
+                """.formatted(EXPENSE_COLUMNS, SEARCH_TEXT, RANKED_SEARCH_MATCHES);
+        String pattern = "%" + LIKE_SPECIAL.matcher(text).replaceAll("\\\\$0") + "%";
+
+        List<MainView.Expense> expenses = new ArrayList<>();
+        int userId = UserSession.getCurrentUserId();
+        try (Connection connection = dataSource.getReadConnection(userId);
+             PreparedStatement stmt = statementCache.prepare(connection, sql)) {
+            stmt.setInt(1, userId);
+            stmt.setString(2, pattern);
+            stmt.setInt(3, offset + limit);
+            stmt.setString(4, text);
+            stmt.setString(5, text);
+            stmt.setInt(6, userId);
+            stmt.setString(7, text);
+            stmt.setInt(8, userId);
+            stmt.setString(9, pattern);
+            stmt.setInt(10, limit);
+            stmt.setInt(11, offset);
+            stmt.setInt(12, offset);
+            stmt.setInt(13, offset + limit);
 
+            ResultSet rs = stmt.executeQuery();
             while (rs.next()) {
-                String recurrenceType = rs.getString("recurrence_type");
-                boolean isRecurring = recurrenceType != null && !recurrenceType.equalsIgnoreCase("None");
-
-                MainView.Expense expense = new MainView.Expense(
-                        rs.getDouble("amount"),
-                        rs.getString("category"),
-                        rs.getString("description"),
-                        rs.getDate("date").toLocalDate(),
-                        isRecurring,
-                        recurrenceType
-                );
-                expense.setId(rs.getInt("id"));
-                expenses.add(expense);
+                expenses.add(mapExpense(rs));
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -135,13 +561,395 @@ public class ExpenseDAO {
         return expenses;
     }
 
+    /**
+     * Cheap estimate of how many expenses the current user has, taken from the
+     * planner's row estimate instead of a COUNT(*) over the whole ledger.
+     */
+    public int estimateExpenseCount() {
+        String sql = "EXPLAIN SELECT 1 FROM expenses WHERE user_id = ?";
+        int userId = UserSession.getCurrentUserId();
+        try (Connection connection = dataSource.getReadConnection(userId);
+             PreparedStatement stmt = statementCache.prepare(connection, sql)) {
+            stmt.setInt(1, userId);
+            ResultSet rs = stmt.executeQuery();
+            if (rs.next()) {
+                Matcher matcher = PLAN_ROWS.matcher(rs.getString(1));
+                if (matcher.find()) {
+                    return (int) Math.min(Integer.MAX_VALUE, Long.parseLong(matcher.group(1)));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return 0;
+    }
+
+    /**
+     * Per-month income and expense totals for the current user between two
+     * months (inclusive), only for months with activity. Expenses come from
+     * expense_month_totals: one-off totals of the month itself, plus running
+     * sums of the monthly recurring totals and of the yearly recurring totals
+     * of the same calendar month, which expands recurring expenses without
+     * touching the expenses table.
+     */
+    public List<MonthlyTotal> getMonthlyTotals(LocalDate fromMonth, LocalDate toMonth) {
+        return getMonthlyTotals(UserSession.getCurrentUserId(), fromMonth, toMonth);
+    }
+
+    public List<MonthlyTotal> getMonthlyTotals(int userId, LocalDate fromMonth, LocalDate toMonth) {
+        // The month series starts at the user's first summary month so the running sums see every start month
+        String sql = """
+                WITH expense_months AS (
+                    SELECT m.month,
+                           coalesce(s.one_off_total, 0) AS one_off_total,
+                           coalesce(s.one_off_count, 0) AS one_off_count,
+                           sum(coalesce(s.monthly_total, 0)) OVER (ORDER BY m.month) AS monthly_total,
+                           sum(coalesce(s.monthly_count, 0)) OVER (ORDER BY m.month) AS monthly_count,
+                           sum(coalesce(s.yearly_total, 0)) OVER (PARTITION BY extract(month FROM m.month) ORDER BY m.month) AS yearly_total,
+                           sum(coalesce(s.yearly_count, 0)) OVER (PARTITION BY extract(month FROM m.month) ORDER BY m.month) AS yearly_count
+                    FROM (
+                        SELECT month::date AS month
+                        FROM generate_series(
+                            least(?::date, (SELECT min(month) FROM expense_month_totals WHERE user_id = ?)),
+                            ?::date, interval '1 month') AS month
+                    ) m
+                    LEFT JOIN expense_month_totals s ON s.user_id = ? AND s.month = m.month
+                ),
+                income_months AS (
+                    SELECT date_trunc('month', month)::date AS month, sum(amount) AS income
+                    FROM income
+                    WHERE user_id = ? AND month >= ? AND month < ?
+                    GROUP BY 1
+                )
+                SELECT e.month,
+                       coalesce(i.income, 0) AS income,
+                       e.one_off_total + e.monthly_total + e.yearly_total AS expenses
+                FROM expense_months e
+                LEFT JOIN income_months i ON i.month = e.month
+                WHERE e.month >= ?
+                  AND (i.month IS NOT NULL OR e.one_off_count > 0 OR e.monthly_count > 0 OR e.yearly_count > 0)
+                ORDER BY e.month
+                """;
+        List<MonthlyTotal> totals = new ArrayList<>();
+        try (Connection connection = dataSource.getReadConnection(userId);
+             PreparedStatement stmt = statementCache.prepare(connection, sql)) {
+            Date from = Date.valueOf(fromMonth.withDayOfMonth(1));
+            Date to = Date.valueOf(toMonth.withDayOfMonth(1));
+            int index = 1;
+            stmt.setDate(index++, from);
+            stmt.setInt(index++, userId);
+            stmt.setDate(index++, to);
+            stmt.setInt(index++, userId);
+            stmt.setInt(index++, userId);
+            stmt.setDate(index++, from);
+            stmt.setDate(index++, Date.valueOf(toMonth.withDayOfMonth(1).plusMonths(1)));
+            stmt.setDate(index, from);
+            ResultSet rs = stmt.executeQuery();
+
+            while (rs.next()) {
+                totals.add(new MonthlyTotal(
+                        rs.getDate("month").toLocalDate(),
+                        Money.getCents(rs, "income"),
+                        Money.getCents(rs, "expenses")
+                ));
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return totals;
+    }
+
+    /**
+     * Income, expenses and running balance for every month with activity up to
+     * {@code toMonth}, oldest first. Recurring expenses are expanded and the
+     * balance is summed in the database.
+     */
+    public List<MonthlyBalance> getRunningBalance(LocalDate toMonth) {
+        return getRunningBalance(UserSession.getCurrentUserId(), toMonth);
+    }
+
+    public List<MonthlyBalance> getRunningBalance(int userId, LocalDate toMonth) {
+        // Expense months come from the running sums over the summary table, income months are unioned in
+        String sql = """
+                WITH expense_months AS (
+                    SELECT m.month,
+                           coalesce(s.one_off_total, 0)
+                               + sum(coalesce(s.monthly_total, 0)) OVER (ORDER BY m.month)
+                               + sum(coalesce(s.yearly_total, 0)) OVER (PARTITION BY extract(month FROM m.month) ORDER BY m.month) AS expenses,
+                           coalesce(s.one_off_count, 0)
+                               + sum(coalesce(s.monthly_count, 0)) OVER (ORDER BY m.month)
+                               + sum(coalesce(s.yearly_count, 0)) OVER (PARTITION BY extract(month FROM m.month) ORDER BY m.month) AS expense_count
+                    FROM (
+                        SELECT month::date AS month
+                        FROM generate_series(
+                            (SELECT min(month) FROM expense_month_totals WHERE user_id = ?),
+                            ?::date, interval '1 month') AS month
+                    ) m
+                    LEFT JOIN expense_month_totals s ON s.user_id = ? AND s.month = m.month
+                ),
+                flows AS (
+                    SELECT month, 0 AS income, expenses
+                    FROM expense_months
+                    WHERE expense_count > 0
+                    UNION ALL
+                    SELECT date_trunc('month', month)::date, amount, 0
+                    FROM income
+                    WHERE user_id = ? AND month < ?
+                )
+                SELECT month,
+                       sum(income) AS income,
+                       sum(expenses) AS expenses,
+                       sum(sum(income) - sum(expenses)) OVER (ORDER BY month) AS balance
+                FROM flows
+                GROUP BY month
+                ORDER BY month
+                """;
+        List<MonthlyBalance> balances = new ArrayList<>();
+        try (Connection connection = dataSource.getReadConnection(userId);
+             PreparedStatement stmt = statementCache.prepare(connection, sql)) {
+            LocalDate to = toMonth.withDayOfMonth(1);
+            stmt.setInt(1, userId);
+            stmt.setDate(2, Date.valueOf(to));
+            stmt.setInt(3, userId);
+            stmt.setInt(4, userId);
+            stmt.setDate(5, Date.valueOf(to.plusMonths(1)));
+            ResultSet rs = stmt.executeQuery();
+
+            while (rs.next()) {
+                balances.add(new MonthlyBalance(
+                        rs.getDate("month").toLocalDate(),
+                        Money.getCents(rs, "income"),
+                        Money.getCents(rs, "expenses"),
+                        Money.getCents(rs, "balance")
+                ));
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return balances;
+    }
+
+    /**
+     * Balance at the end of the day {@code date}: all income up to its month
+     * minus every expense occurrence up to that day, recurring ones included.
+     * Income is recorded per month and counts from the first of its month.
+     * Recurring expenses occur on the day of month of their date, or on the
+     * last day of shorter months. Whole months are read from the summary
+     * rows; only the expenses of the date's month that fall after it are
+     * read from the ledger.
+     */
+    public long getBalanceAsOf(LocalDate date) {
+        return getBalanceAsOf(UserSession.getCurrentUserId(), date);
+    }
+
+    public long getBalanceAsOf(int userId, LocalDate date) {
+        // Each summary row's occurrences up to the month follow from its distance in months.
+        // The occurrences of the month after the day are then added back.
+        String sql = """
+                SELECT (SELECT coalesce(sum(amount), 0) FROM income WHERE user_id = ? AND month < ?)
+                     - (SELECT coalesce(sum(one_off_total
+                                            + monthly_total * (? - month_index + 1)
+                                            + yearly_total * ((? - month_index) / 12 + 1)), 0)
+                        FROM (
+                            SELECT one_off_total, monthly_total, yearly_total,
+                                   (extract(year FROM month) * 12 + extract(month FROM month) - 1)::int AS month_index
+                            FROM expense_month_totals
+                            WHERE user_id = ? AND month <= ?
+                        ) s)
+                     + (SELECT coalesce(sum(amount), 0)
+                        FROM expenses
+                        WHERE user_id = ? AND date > ? AND date < ?
+                          AND coalesce(lower(recurrence_type), 'none') = 'none')
+                     + (SELECT coalesce(sum(amount), 0)
+                        FROM expenses
+                        WHERE user_id = ? AND date < ?
+                          AND coalesce(lower(recurrence_type), 'none') <> 'none'
+                          AND (lower(recurrence_type) = 'monthly' OR extract(month FROM date) = ?)
+                          AND least(extract(day FROM date), ?) > ?) AS balance
+                """;
+        try (Connection connection = dataSource.getReadConnection(userId);
+             PreparedStatement stmt = statementCache.prepare(connection, sql)) {
+            LocalDate month = date.withDayOfMonth(1);
+            Date nextMonth = Date.valueOf(month.plusMonths(1));
+            int monthIndex = Recurrence.monthIndex(month);
+            stmt.setInt(1, userId);
+            stmt.setDate(2, nextMonth);
+            stmt.setInt(3, monthIndex);
+            stmt.setInt(4, monthIndex);
+            stmt.setInt(5, userId);
+            stmt.setDate(6, Date.valueOf(month));
+            stmt.setInt(7, userId);
+            stmt.setDate(8, Date.valueOf(date));
+            stmt.setDate(9, nextMonth);
+            stmt.setInt(10, userId);
+            stmt.setDate(11, nextMonth);
+            stmt.setInt(12, month.getMonthValue());
+            stmt.setInt(13, month.lengthOfMonth());
+            stmt.setInt(14, date.getDayOfMonth());
+            ResultSet rs = stmt.executeQuery();
+            if (rs.next()) {
+                return Money.getCents(rs, "balance");
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return 0;
+    }
+
+    /**
+     * Expense totals per category over the whole ledger, largest first, read
+     * from expense_category_totals.
+     */
+    public List<CategoryTotal> getCategoryTotals() {
+        return getCategoryTotals(UserSession.getCurrentUserId());
+    }
+
+    public List<CategoryTotal> getCategoryTotals(int userId) {
+        String sql = "SELECT category, total FROM expense_category_totals WHERE user_id = ? ORDER BY total DESC";
+        List<CategoryTotal> totals = new ArrayList<>();
+        try (Connection connection = dataSource.getReadConnection(userId);
+             PreparedStatement stmt = statementCache.prepare(connection, sql)) {
+            stmt.setInt(1, userId);
+            ResultSet rs = stmt.executeQuery();
+
+            while (rs.next()) {
+                totals.add(new CategoryTotal(rs.getString("category"), Money.getCents(rs, "total")));
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return totals;
+    }
+
+    /**
+     * Expense totals per category between two months (inclusive), largest
+     * first, with recurring expenses counted once for every occurrence in range.
+     */
+    public List<CategoryTotal> getCategoryTotals(LocalDate fromMonth, LocalDate toMonth) {
+        return getCategoryTotals(UserSession.getCurrentUserId(), fromMonth, toMonth);
+    }
+
+    public List<CategoryTotal> getCategoryTotals(int userId, LocalDate fromMonth, LocalDate toMonth) {
+        String sql = """
+                WITH occurrences AS (
+                    SELECT e.category, e.amount
+                    FROM expenses e
+                    WHERE e.user_id = ?
+                      AND e.date >= ? AND e.date < ?
+                      AND coalesce(lower(e.recurrence_type), 'none') = 'none'
+                    UNION ALL
+                    -- Occurrence counts by month arithmetic, the same as Recurrence
+                    SELECT category, amount * ((? - first_month) / step + 1)
+                    FROM (
+                        SELECT e.category, e.amount, r.step,
+                               r.start_month + (greatest(? - r.start_month, 0) + r.step - 1) / r.step * r.step AS first_month
+                        FROM expenses e
+                        CROSS JOIN LATERAL (
+                            SELECT CASE WHEN lower(e.recurrence_type) = 'monthly' THEN 1 ELSE 12 END AS step,
+                                   (extract(year FROM e.date) * 12 + extract(month FROM e.date) - 1)::int AS start_month
+                        ) r
+                        WHERE e.user_id = ?
+                          AND e.date < ?
+                          AND coalesce(lower(e.recurrence_type), 'none') <> 'none'
+                    ) recurring
+                    WHERE first_month <= ?
+                )
+                SELECT category, sum(amount) AS total
+                FROM occurrences
+                GROUP BY category
+                ORDER BY total DESC
+                """;
+        List<CategoryTotal> totals = new ArrayList<>();
+        try (Connection connection = dataSource.getReadConnection(userId);
+             PreparedStatement stmt = statementCache.prepare(connection, sql)) {
+            Date from = Date.valueOf(fromMonth.withDayOfMonth(1));
+            Date end = Date.valueOf(toMonth.withDayOfMonth(1).plusMonths(1));
+            int index = 1;
+            stmt.setInt(index++, userId);
+            stmt.setDate(index++, from);
+            stmt.setDate(index++, end);
+            stmt.setInt(index++, Recurrence.monthIndex(toMonth));
+            stmt.setInt(index++, Recurrence.monthIndex(fromMonth));
+            stmt.setInt(index++, userId);
+            stmt.setDate(index++, end);
+            stmt.setInt(index, Recurrence.monthIndex(toMonth));
+            ResultSet rs = stmt.executeQuery();
+
+            while (rs.next()) {
+                totals.add(new CategoryTotal(rs.getString("category"), Money.getCents(rs, "total")));
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return totals;
+    }
+
+    public long getCalculatedBalance() {
+        return getCalculatedBalance(UserSession.getCurrentUserId());
+    }
+
+    /**
+     * Balance as of today, see {@link #getBalanceAsOf(int, LocalDate)}.
+     */
+    public long getCalculatedBalance(int userId) {
+        return getBalanceAsOf(userId, LocalDate.now());
+    }
+
+    /**
+     * First month with any income or expense for the current user, or null for an empty ledger.
+     */
+    public LocalDate getFirstActivityMonth() {
+        return getFirstActivityMonth(UserSession.getCurrentUserId());
+    }
+
+    public LocalDate getFirstActivityMonth(int userId) {
+        String sql = """
+                SELECT date_trunc('month', least(
+                    (SELECT min(month) FROM expense_month_totals WHERE user_id = ?),
+                    (SELECT min(month) FROM income WHERE user_id = ?)))::date AS first_month
+                """;
+        try (Connection connection = dataSource.getReadConnection(userId);
+             PreparedStatement stmt = statementCache.prepare(connection, sql)) {
+            stmt.setInt(1, userId);
+            stmt.setInt(2, userId);
+            ResultSet rs = stmt.executeQuery();
+            if (rs.next()) {
+                Date firstMonth = rs.getDate("first_month");
+                return firstMonth != null ? firstMonth.toLocalDate() : null;
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    private MainView.Expense mapExpense(ResultSet rs) throws SQLException {
+        String recurrenceType = rs.getString("recurrence_type");
+        boolean isRecurring = recurrenceType != null && !recurrenceType.equalsIgnoreCase("None");
+
+        MainView.Expense expense = new MainView.Expense(
+                Money.getCents(rs, "amount"),
+                rs.getString("category"),
+                rs.getString("description"),
+                rs.getDate("date").toLocalDate(),
+                isRecurring,
+                recurrenceType
+        );
+        expense.setId(rs.getInt("id"));
+        return expense;
+    }
+
     public void saveIncome(Income income) {
         String sql = "INSERT INTO income (amount, month, user_id) VALUES (?, ?, ?)";
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setDouble(1, income.getAmount());
+        int userId = UserSession.getCurrentUserId();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement stmt = statementCache.prepare(connection, sql)) {
+            Money.setCents(stmt, 1, income.getAmountCents());
             stmt.setDate(2, Date.valueOf(income.getMonth()));
-            stmt.setInt(3, UserSession.getCurrentUserId());
+            stmt.setInt(3, userId);
             stmt.executeUpdate();
+            dataSource.recordWrite(userId);
+            incomeChanged(userId);
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -149,14 +957,16 @@ public class ExpenseDAO {
 
     public Income getIncomeForMonth(LocalDate month) {
         String sql = "SELECT * FROM income WHERE month = ? AND user_id = ?";
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        int userId = UserSession.getCurrentUserId();
+        try (Connection connection = dataSource.getReadConnection(userId);
+             PreparedStatement stmt = statementCache.prepare(connection, sql)) {
             stmt.setDate(1, Date.valueOf(month.withDayOfMonth(1)));
-            stmt.setInt(2, UserSession.getCurrentUserId());
+            stmt.setInt(2, userId);
             ResultSet rs = stmt.executeQuery();
             if (rs.next()) {
                 Income income = new Income();
                 income.setId(rs.getInt("id"));
-                income.setAmount(rs.getDouble("amount"));
+                income.setAmountCents(Money.getCents(rs, "amount"));
                 income.setMonth(rs.getDate("month").toLocalDate());
                 return income;
             }
@@ -167,16 +977,21 @@ public class ExpenseDAO {
     }
 
     public List<Income> getAllIncome() {
+        return getAllIncome(UserSession.getCurrentUserId());
+    }
+
+    public List<Income> getAllIncome(int userId) {
         List<Income> incomeList = new ArrayList<>();
         String sql = "SELECT * FROM income WHERE user_id = ? ORDER BY month";
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setInt(1, UserSession.getCurrentUserId());
+        try (Connection connection = dataSource.getReadConnection(userId);
+             PreparedStatement stmt = statementCache.prepare(connection, sql)) {
+            stmt.setInt(1, userId);
             ResultSet rs = stmt.executeQuery();
 
             while (rs.next()) {
                 Income income = new Income();
                 income.setId(rs.getInt("id"));
-                income.setAmount(rs.getDouble("amount"));
+                income.setAmountCents(Money.getCents(rs, "amount"));
                 income.setMonth(rs.getDate("month").toLocalDate());
                 incomeList.add(income);
             }
@@ -186,24 +1001,57 @@ public class ExpenseDAO {
         return incomeList;
     }
 
-    public void saveOrUpdateIncome(Income income) {
-        String checkSql = "SELECT id FROM income WHERE month = ? AND user_id = ?";
-        try (PreparedStatement checkStmt = connection.prepareStatement(checkSql)) {
-            checkStmt.setDate(1, Date.valueOf(income.getMonth()));
-            checkStmt.setInt(2, UserSession.getCurrentUserId());
-            ResultSet rs = checkStmt.executeQuery();
+    /**
+     * Streams the user's expenses to {@code handler} one row at a time, oldest
+     * first. The query runs inside a transaction with a fetch size, so the
+     * driver reads through a server-side cursor instead of loading the whole
+     * result set into memory.
+     */
+    public void streamExpenses(int userId, RowHandler handler) throws SQLException, IOException {
+        String sql = EXPENSE_COLUMNS + " FROM expenses WHERE user_id = ? ORDER BY date, id";
+        streamRows(sql, userId, handler);
+    }
 
-            if (rs.next()) {
-                String updateSql = "UPDATE income SET amount = ? WHERE month = ? AND user_id = ?";
-                try (PreparedStatement updateStmt = connection.prepareStatement(updateSql)) {
-                    updateStmt.setDouble(1, income.getAmount());
-                    updateStmt.setDate(2, Date.valueOf(income.getMonth()));
-                    updateStmt.setInt(3, UserSession.getCurrentUserId());
-                    updateStmt.executeUpdate();
+    public void streamIncome(int userId, RowHandler handler) throws SQLException, IOException {
+        String sql = "SELECT id, amount, month FROM income WHERE user_id = ? ORDER BY month, id";
+        streamRows(sql, userId, handler);
+    }
+
+    private void streamRows(String sql, int userId, RowHandler handler) throws SQLException, IOException {
+        try (Connection connection = dataSource.getReadConnection(userId)) {
+            // pgjdbc only uses a cursor when autocommit is off and a fetch size is set
+            connection.setAutoCommit(false);
+            try (PreparedStatement stmt = statementCache.prepare(connection, sql)) {
+                stmt.setFetchSize(EXPORT_FETCH_SIZE);
+                stmt.setInt(1, userId);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        handler.handle(rs);
+                    }
                 }
-            } else {
-                saveIncome(income);
+            } finally {
+                // Nothing was written, this only closes the cursor's transaction
+                connection.rollback();
+                connection.setAutoCommit(true);
             }
+        }
+    }
+
+    public void saveOrUpdateIncome(Income income) {
+        // One atomic statement, backed by the unique (user_id, month) constraint
+        String sql = """
+                INSERT INTO income (amount, month, user_id) VALUES (?, ?, ?)
+                ON CONFLICT (user_id, month) DO UPDATE SET amount = EXCLUDED.amount
+                """;
+        int userId = UserSession.getCurrentUserId();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement stmt = statementCache.prepare(connection, sql)) {
+            Money.setCents(stmt, 1, income.getAmountCents());
+            stmt.setDate(2, Date.valueOf(income.getMonth()));
+            stmt.setInt(3, userId);
+            stmt.executeUpdate();
+            dataSource.recordWrite(userId);
+            incomeChanged(userId);
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -211,45 +1059,39 @@ public class ExpenseDAO {
 
     // Bank Balance methods
     public void saveOrUpdateBankBalance(BankBalance bankBalance) {
-        String checkSql = "SELECT COUNT(*) FROM bank_balance WHERE user_id = ?";
-        try (PreparedStatement checkStmt = connection.prepareStatement(checkSql)) {
-            checkStmt.setInt(1, UserSession.getCurrentUserId());
-            ResultSet rs = checkStmt.executeQuery();
-            rs.next();
-            int count = rs.getInt(1);
-
-            if (count > 0) {
-                String updateSql = "UPDATE bank_balance SET amount = ?, last_updated = ? WHERE user_id = ?";
-                try (PreparedStatement updateStmt = connection.prepareStatement(updateSql)) {
-                    updateStmt.setDouble(1, bankBalance.getAmount());
-                    updateStmt.setTimestamp(2, Timestamp.valueOf(bankBalance.getLastUpdated()));
-                    updateStmt.setInt(3, UserSession.getCurrentUserId());
-                    updateStmt.executeUpdate();
-                }
-            } else {
-                String insertSql = "INSERT INTO bank_balance (amount, last_updated, user_id) VALUES (?, ?, ?)";
-                try (PreparedStatement insertStmt = connection.prepareStatement(insertSql)) {
-                    insertStmt.setDouble(1, bankBalance.getAmount());
-                    insertStmt.setTimestamp(2, Timestamp.valueOf(bankBalance.getLastUpdated()));
-                    insertStmt.setInt(3, UserSession.getCurrentUserId());
-                    insertStmt.executeUpdate();
-                }
-            }
+        // Each user has a single balance row, enforced by the unique user_id constraint
+        String sql = """
+                INSERT INTO bank_balance (amount, last_updated, user_id) VALUES (?, ?, ?)
+                ON CONFLICT (user_id) DO UPDATE SET amount = EXCLUDED.amount, last_updated = EXCLUDED.last_updated
+                """;
+        int userId = UserSession.getCurrentUserId();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement stmt = statementCache.prepare(connection, sql)) {
+            Money.setCents(stmt, 1, bankBalance.getAmountCents());
+            stmt.setTimestamp(2, Timestamp.valueOf(bankBalance.getLastUpdated()));
+            stmt.setInt(3, userId);
+            stmt.executeUpdate();
+            dataSource.recordWrite(userId);
         } catch (SQLException e) {
             e.printStackTrace();
         }
     }
 
     public BankBalance getCurrentBankBalance() {
+        return getCurrentBankBalance(UserSession.getCurrentUserId());
+    }
+
+    public BankBalance getCurrentBankBalance(int userId) {
         String sql = "SELECT * FROM bank_balance WHERE user_id = ? ORDER BY last_updated DESC LIMIT 1";
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setInt(1, UserSession.getCurrentUserId());
+        try (Connection connection = dataSource.getReadConnection(userId);
+             PreparedStatement stmt = statementCache.prepare(connection, sql)) {
+            stmt.setInt(1, userId);
             ResultSet rs = stmt.executeQuery();
 
             if (rs.next()) {
                 BankBalance bankBalance = new BankBalance();
                 bankBalance.setId(rs.getInt("id"));
-                bankBalance.setAmount(rs.getDouble("amount"));
+                bankBalance.setAmountCents(Money.getCents(rs, "amount"));
                 bankBalance.setLastUpdated(rs.getTimestamp("last_updated").toLocalDateTime());
                 return bankBalance;
             }
@@ -261,12 +1103,34 @@ public class ExpenseDAO {
 
     public void deleteIncome(int id) {
         String sql = "DELETE FROM income WHERE id = ? AND user_id = ?";
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        int userId = UserSession.getCurrentUserId();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement stmt = statementCache.prepare(connection, sql)) {
             stmt.setInt(1, id);
-            stmt.setInt(2, UserSession.getCurrentUserId());
+            stmt.setInt(2, userId);
             stmt.executeUpdate();
+            dataSource.recordWrite(userId);
+            incomeChanged(userId);
         } catch (SQLException e) {
             e.printStackTrace();
         }
     }
-}
\ No newline at end of file
+
+    private void expensesChanged(int userId, ExpenseSummaryChange change) {
+        for (ExpenseChangeListener listener : listeners) {
+            listener.expensesChanged(userId, change);
+        }
+    }
+
+    private void incomeChanged(int userId) {
+        for (ExpenseChangeListener listener : listeners) {
+            listener.incomeChanged(userId);
+        }
+    }
+
+    /** Receives rows from the streaming reads, positioned on the current row. */
+    @FunctionalInterface
+    public interface RowHandler {
+        void handle(ResultSet rs) throws SQLException, IOException;
+    }
+}
@@ -0,0 +1,168 @@
+package org.expense.tracker;
+
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+@Service
+public class ExpenseExportService {
+
+    public enum Format {
+        CSV("csv", "text/csv"),
+        JSON_LINES("jsonl", "application/x-ndjson");
+
+        private final String extension;
+        private final String contentType;
+
+        Format(String extension, String contentType) {
+            this.extension = extension;
+            this.contentType = contentType;
+        }
+
+        public String getExtension() { return extension; }
+        public String getContentType() { return contentType; }
+    }
+
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private final ExpenseDAO expenseDAO;
+
+    public ExpenseExportService(ExpenseDAO expenseDAO) {
+        this.expenseDAO = expenseDAO;
+    }
+
+    /**
+     * Writes every expense of the user to {@code out} while the rows are read
+     * from the database. The CSV layout matches what the import accepts.
+     */
+    public void exportExpenses(int userId, Format format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+        if (format == Format.CSV) {
+            writer.write("date,amount,category,description,recurrence_type\n");
+        }
+        try {
+            expenseDAO.streamExpenses(userId, rs -> writeExpense(rs, format, writer));
+        } catch (SQLException e) {
+            throw new IOException("Expense export failed", e);
+        }
+        writer.flush();
+    }
+
+    public void exportIncome(int userId, Format format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+        if (format == Format.CSV) {
+            writer.write("month,amount\n");
+        }
+        try {
+            expenseDAO.streamIncome(userId, rs -> writeIncome(rs, format, writer));
+        } catch (SQLException e) {
+            throw new IOException("Income export failed", e);
+        }
+        writer.flush();
+    }
+
+    private void writeExpense(ResultSet rs, Format format, Writer writer) throws SQLException, IOException {
+        String date = rs.getDate("date").toLocalDate().toString();
+        String amount = Money.toPlainString(Money.getCents(rs, "amount"));
+        String category = rs.getString("category");
+        String description = rs.getString("description");
+        String recurrenceType = rs.getString("recurrence_type");
+
+        if (format == Format.CSV) {
+            writer.write(date);
+            writer.write(',');
+            writer.write(amount);
+            writer.write(',');
+            writeCsvField(writer, category);
+            writer.write(',');
+            writeCsvField(writer, description);
+            writer.write(',');
+            writeCsvField(writer, recurrenceType);
+        } else {
+            writer.write("{\"id\":");
+            writer.write(Integer.toString(rs.getInt("id")));
+            writer.write(",\"date\":\"");
+            writer.write(date);
+            writer.write("\",\"amount\":");
+            writer.write(amount);
+            writer.write(",\"category\":");
+            writeJsonString(writer, category);
+            writer.write(",\"description\":");
+            writeJsonString(writer, description);
+            writer.write(",\"recurring\":");
+            writer.write(Boolean.toString(rs.getBoolean("recurring")));
+            writer.write(",\"recurrenceType\":");
+            writeJsonString(writer, recurrenceType);
+            writer.write('}');
+        }
+        writer.write('\n');
+    }
+
+    private void writeIncome(ResultSet rs, Format format, Writer writer) throws SQLException, IOException {
+        String month = rs.getDate("month").toLocalDate().toString();
+        String amount = Money.toPlainString(Money.getCents(rs, "amount"));
+
+        if (format == Format.CSV) {
+            writer.write(month);
+            writer.write(',');
+            writer.write(amount);
+        } else {
+            writer.write("{\"id\":");
+            writer.write(Integer.toString(rs.getInt("id")));
+            writer.write(",\"month\":\"");
+            writer.write(month);
+            writer.write("\",\"amount\":");
+            writer.write(amount);
+            writer.write('}');
+        }
+        writer.write('\n');
+    }
+
+    private static void writeCsvField(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean quote = value.isEmpty() || value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private static void writeJsonString(Writer writer, String value) throws IOException {
+        if (value == null) {
+            writer.write("null");
+            return;
+        }
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> writer.write("\\\"");
+                case '\\' -> writer.write("\\\\");
+                case '\n' -> writer.write("\\n");
+                case '\r' -> writer.write("\\r");
+                case '\t' -> writer.write("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        writer.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        writer.write(c);
+                    }
+                }
+            }
+        }
+        writer.write('"');
+    }
+}
@@ -0,0 +1,157 @@
+package org.expense.tracker;
+
+import com.vaadin.flow.data.provider.CallbackDataProvider;
+import com.vaadin.flow.data.provider.Query;
+import com.vaadin.flow.data.provider.QuerySortOrder;
+import com.vaadin.flow.data.provider.SortDirection;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Lazy fetch callback for the expense grid. The grid asks for rows by offset,
+ * so the pager remembers the last row of every page it has served and turns
+ * the next request into a keyset query that continues from that row.
+ * Jumps to an offset it has not seen yet start from the nearest earlier
+ * anchor and skip the gap.
+ *
+ * While a search text is set, pages come from the ranked search instead,
+ * by offset and in the search's own order.
+ *
+ * With write-behind, writes still waiting in the queue are laid over the
+ * stored rows: new expenses are listed first, edited ones replace their
+ * stored row and deleted ones are left out. The view takes each change back
+ * once its write has completed and reloads the rows from the database.
+ * Offsets past the first page do not account for rows left out earlier, so
+ * a pending delete can shift later pages by a row until it is committed.
+ */
+public class ExpenseGridPager implements CallbackDataProvider.FetchCallback<MainView.Expense, Void> {
+
+    private static final String DEFAULT_SORT = "date";
+
+    private final ExpenseService expenseService;
+    private final TreeMap<Integer, MainView.Expense> anchors = new TreeMap<>();
+    private String sortProperty = DEFAULT_SORT;
+    private boolean descending = true;
+    private String search;
+    private final List<MainView.Expense> pendingInserts = new ArrayList<>();
+    private final Map<Integer, MainView.Expense> pendingUpdates = new HashMap<>();
+    private final Set<Integer> pendingDeletes = new HashSet<>();
+
+    public ExpenseGridPager(ExpenseService expenseService) {
+        this.expenseService = expenseService;
+    }
+
+    @Override
+    public Stream<MainView.Expense> fetch(Query<MainView.Expense, Void> query) {
+        int offset = query.getOffset();
+        int limit = query.getLimit();
+        if (search != null) {
+            return expenseService.searchExpenses(search, offset, limit).stream()
+                    .filter(expense -> !pendingDeletes.contains(expense.getId()))
+                    .map(this::withPendingUpdate);
+        }
+
+        applySort(query.getSortOrders());
+
+        // Pending new expenses come first, the stored rows continue after them
+        List<MainView.Expense> rows = new ArrayList<>(limit);
+        for (int i = offset; i < pendingInserts.size() && rows.size() < limit; i++) {
+            rows.add(pendingInserts.get(i));
+        }
+        int storedOffset = Math.max(0, offset - pendingInserts.size());
+        if (rows.size() < limit) {
+            // Fetch enough extra rows to fill the page when pending deletes are left out
+            for (MainView.Expense expense : fetchStored(storedOffset, limit - rows.size() + pendingDeletes.size())) {
+                if (rows.size() == limit) {
+                    break;
+                }
+                if (!pendingDeletes.contains(expense.getId())) {
+                    rows.add(withPendingUpdate(expense));
+                }
+            }
+        }
+        return rows.stream();
+    }
+
+    private List<MainView.Expense> fetchStored(int offset, int limit) {
+        // Offset 0 needs no anchor; anything else continues from the closest row we have already seen
+        Map.Entry<Integer, MainView.Expense> anchor = anchors.floorEntry(offset);
+        MainView.Expense after = anchor != null ? anchor.getValue() : null;
+        int skip = anchor != null ? offset - anchor.getKey() : offset;
+
+        List<MainView.Expense> page = expenseService.getExpensesPage(sortProperty, descending, after, skip, limit);
+        if (!page.isEmpty()) {
+            anchors.put(offset + page.size(), page.get(page.size() - 1));
+        }
+        return page;
+    }
+
+    private MainView.Expense withPendingUpdate(MainView.Expense expense) {
+        return pendingUpdates.getOrDefault(expense.getId(), expense);
+    }
+
+    /**
+     * Lists a queued new expense until {@link #forgetPending} is called for it.
+     */
+    public void addPendingInsert(MainView.Expense expense) {
+        pendingInserts.add(0, expense);
+    }
+
+    /**
+     * Shows a queued edit in place of the stored row with the same id.
+     */
+    public void addPendingUpdate(MainView.Expense expense) {
+        pendingUpdates.put(expense.getId(), expense);
+    }
+
+    public void addPendingDelete(int id) {
+        pendingDeletes.add(id);
+    }
+
+    /**
+     * Takes back a pending insert or update once its write has completed.
+     */
+    public void forgetPending(MainView.Expense expense) {
+        pendingInserts.removeIf(pending -> pending == expense);
+        pendingUpdates.remove(expense.getId(), expense);
+    }
+
+    public void forgetPendingDelete(int id) {
+        pendingDeletes.remove(id);
+    }
+
+    public void reset() {
+        anchors.clear();
+    }
+
+    /**
+     * Shows only expenses matching {@code text}, or all of them again when it is null.
+     */
+    public void setSearch(String text) {
+        search = text;
+        anchors.clear();
+    }
+
+    private void applySort(List<QuerySortOrder> sortOrders) {
+        String property = DEFAULT_SORT;
+        boolean desc = true;
+        if (!sortOrders.isEmpty()) {
+            QuerySortOrder order = sortOrders.get(0);
+            property = order.getSorted();
+            desc = order.getDirection() == SortDirection.DESCENDING;
+        }
+
+        if (!property.equals(sortProperty) || desc != descending) {
+            sortProperty = property;
+            descending = desc;
+            anchors.clear();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package org.expense.tracker;
+
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+@Service
+public class ExpenseImportService {
+
+    private final ExpenseDAO expenseDAO;
+    private final AggregateCache cache;
+
+    public ExpenseImportService(ExpenseDAO expenseDAO, AggregateCache cache) {
+        this.expenseDAO = expenseDAO;
+        this.cache = cache;
+    }
+
+    /**
+     * Streams a CSV upload straight into the database. Rows are parsed and
+     * validated while COPY pulls them, so memory use does not grow with file size.
+     */
+    public ImportResult importCsv(int userId, InputStream input, CsvExpenseReader.AmountSigns amountSigns) {
+        CsvExpenseReader rows = new CsvExpenseReader(
+                new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8)), amountSigns);
+
+        long imported = expenseDAO.importExpenses(userId, rows);
+        if (imported < 0) {
+            return new ImportResult(-1, rows.getRejectedCount(), List.of("Import failed, no expenses were saved"));
+        }
+        cache.invalidate(userId);
+        return new ImportResult(imported, rows.getRejectedCount(), rows.getErrors());
+    }
+}
@@ -0,0 +1,102 @@
+package org.expense.tracker;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Keeps a {@link TimeRollup} per user for the zoomable charts, in a
+ * {@link PerUserCache}. A rollup is built once from the user's ledger and
+ * income, and ExpenseDAO patches every committed expense write into it
+ * instead of throwing it away.
+ *
+ * A rollup covers horizon-years past today and is rebuilt once that no
+ * longer holds, or when a read reaches past its last day.
+ *
+ * Writes that cannot be patched (income changes, expenses before the covered
+ * years, archived partitions) drop the user's rollup, and it is rebuilt on the
+ * next read.
+ */
+@Component
+@ManagedResource(objectName = "org.expense.tracker:type=ExpenseRollups")
+public class ExpenseRollups implements ExpenseChangeListener {
+
+    private final int horizonYears;
+    // One rollup per user, so a single key
+    private final PerUserCache<Boolean, TimeRollup> cache;
+
+    public ExpenseRollups(@Value("${app.rollups.max-users:1000}") int maxUsers,
+                          @Value("${app.rollups.horizon-years:2}") int horizonYears) {
+        this.horizonYears = Math.max(0, horizonYears);
+        this.cache = new PerUserCache<>(maxUsers, 1);
+    }
+
+    /**
+     * Returns the user's rollup, building it from the ledger and income if
+     * there is none yet or it no longer reaches horizon-years past today or
+     * up to {@code until}.
+     */
+    public TimeRollup get(int userId, LocalDate until, Supplier<Ledger> ledger, Supplier<List<Income>> income) {
+        LocalDate today = LocalDate.now();
+        // Every build covers at least this far, so a fresh rollup is always usable
+        LocalDate horizon = today.plusYears(horizonYears);
+        LocalDate covered = until.isAfter(horizon) ? until : horizon;
+        return cache.get(userId, Boolean.TRUE,
+                rollup -> !rollup.getLastDay().isBefore(covered),
+                () -> TimeRollup.build(ledger.get(), income.get(), today, horizonYears, until));
+    }
+
+    /**
+     * Patches a committed expense change into the user's rollup.
+     */
+    @Override
+    public void expensesChanged(int userId, ExpenseSummaryChange change) {
+        cache.patch(userId, (key, rollup) -> change.applyTo(rollup));
+    }
+
+    @Override
+    public void incomeChanged(int userId) {
+        invalidate(userId);
+    }
+
+    public void invalidate(int userId) {
+        cache.invalidate(userId);
+    }
+
+    @Override
+    @ManagedOperation
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    @ManagedAttribute
+    public long getHits() {
+        return cache.getHits();
+    }
+
+    @ManagedAttribute
+    public long getBuilds() {
+        return cache.getBuilds();
+    }
+
+    @ManagedAttribute
+    public long getPatches() {
+        return cache.getPatches();
+    }
+
+    @ManagedAttribute
+    public long getInvalidations() {
+        return cache.getInvalidations();
+    }
+
+    @ManagedAttribute
+    public int getCachedUsers() {
+        return cache.getCachedUsers();
+    }
+}
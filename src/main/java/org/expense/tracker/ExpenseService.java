@@ -1,31 +1,187 @@
 package org.expense.tracker;
 
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
+/**
+ * Expense, income and bank balance access for the views. Ledgers and balances
+ * are served from the {@link AggregateCache}, and every write invalidates the
+ * user's cached aggregates once it is committed.
+ */
+@Service
 public class ExpenseService {
 
+    // Cache keys shared with AsyncExpenseService
+    static final String BANK_BALANCE = "bankBalance";
+    static final String CALCULATED_BALANCE = "calculatedBalance";
+    static final String LEDGER = "ledger";
+
+    static Object dashboardMetricsKey(LocalDate currentMonth, int months) {
+        return List.of("dashboardMetrics", currentMonth, months);
+    }
+
+    static Object balanceAsOfKey(LocalDate date) {
+        return List.of("balanceAsOf", date);
+    }
+
     private final ExpenseDAO expenseDAO;
+    private final ExpenseWriteQueue writeQueue;
+    private final AggregateCache cache;
+    private final LedgerAggregator aggregator;
+    private final TopCategories topCategories;
+
+    public ExpenseService(ExpenseDAO expenseDAO, ExpenseWriteQueue writeQueue, AggregateCache cache,
+                          LedgerAggregator aggregator, TopCategories topCategories) {
+        this.expenseDAO = expenseDAO;
+        this.writeQueue = writeQueue;
+        this.cache = cache;
+        this.aggregator = aggregator;
+        this.topCategories = topCategories;
+    }
 
-    public ExpenseService() {
-        DBConnect db = new DBConnect();
-        db.connectToDatabase("expenseTracker", "postgres", "faris123");
-        this.expenseDAO = new ExpenseDAO(db.getConnection());
+    /**
+     * Whether expense writes are queued rather than committed before the
+     * write methods return.
+     */
+    public boolean isWriteBehind() {
+        return writeQueue.isEnabled();
     }
 
-    public void addExpense(MainView.Expense expense) {
+    /**
+     * Saves the expense. With write-behind enabled it is only queued, and the
+     * returned future completes once it is committed (the id is set by then).
+     * Otherwise it is saved right away and the future is already complete,
+     * exceptionally if the save failed.
+     */
+    public CompletableFuture<Void> addExpense(MainView.Expense expense) {
+        int userId = UserSession.getCurrentUserId();
+        if (writeQueue.isEnabled()) {
+            return invalidateWhenWritten(userId, writeQueue.submit(ExpenseWrite.insert(userId, expense)));
+        }
         int id = expenseDAO.saveExpense(expense);
         expense.setId(id);
+        cache.invalidate(userId);
+        return written(id >= 0, "Expense could not be added");
+    }
+
+    public void addExpenses(List<MainView.Expense> expenses) {
+        List<Integer> ids = expenseDAO.saveExpenses(expenses);
+        for (int i = 0; i < expenses.size(); i++) {
+            expenses.get(i).setId(i < ids.size() ? ids.get(i) : -1);
+        }
+        cache.invalidate(UserSession.getCurrentUserId());
     }
 
-    public void updateExpense(MainView.Expense expense) {
-        expenseDAO.updateExpense(expense);
+    public CompletableFuture<Void> updateExpense(MainView.Expense expense) {
+        int userId = UserSession.getCurrentUserId();
+        if (writeQueue.isEnabled()) {
+            return invalidateWhenWritten(userId, writeQueue.submit(ExpenseWrite.update(userId, expense)));
+        }
+        boolean updated = expenseDAO.updateExpense(expense);
+        cache.invalidate(userId);
+        return written(updated, "Expense " + expense.getId() + " could not be updated");
     }
 
-    public void deleteExpense(int id) {
-        expenseDAO.deleteExpense(id);
+    public CompletableFuture<Void> deleteExpense(int id) {
+        int userId = UserSession.getCurrentUserId();
+        if (writeQueue.isEnabled()) {
+            return invalidateWhenWritten(userId, writeQueue.submit(ExpenseWrite.delete(userId, id)));
+        }
+        boolean deleted = expenseDAO.deleteExpense(id);
+        cache.invalidate(userId);
+        return written(deleted, "Expense " + id + " could not be deleted");
+    }
+
+    // The DAO has already logged the cause of a failed synchronous write
+    private static CompletableFuture<Void> written(boolean success, String failure) {
+        return success
+                ? CompletableFuture.completedFuture(null)
+                : CompletableFuture.failedFuture(new IllegalStateException(failure));
+    }
+
+    // The returned future completes after the invalidation, so a refresh on completion reloads
+    private CompletableFuture<Void> invalidateWhenWritten(int userId, CompletableFuture<Void> write) {
+        return write.whenComplete((result, error) -> cache.invalidate(userId));
     }
 
     public List<MainView.Expense> getAllExpenses() {
         return expenseDAO.getAllExpenses();
     }
+
+    public Ledger loadLedger() {
+        int userId = UserSession.getCurrentUserId();
+        return cache.get(userId, LEDGER, () -> expenseDAO.loadLedger(userId));
+    }
+
+    /**
+     * Dashboard figures for the {@code months} months up to {@code currentMonth}
+     * (the first of a month), shared with the dashboard through the cache.
+     */
+    public DashboardMetrics getDashboardMetrics(LocalDate currentMonth, int months) {
+        int userId = UserSession.getCurrentUserId();
+        return cache.get(userId, dashboardMetricsKey(currentMonth, months), () -> DashboardMetrics.compute(
+                aggregator, loadLedger(), expenseDAO.getAllIncome(userId), currentMonth, months));
+    }
+
+    /**
+     * The largest category of the month of {@code month}, recurring expenses
+     * included, or null when nothing was spent. Read from the user's sketch,
+     * which is kept up to date by every write.
+     */
+    public String getTopCategory(LocalDate month) {
+        int userId = UserSession.getCurrentUserId();
+        return topCategories.getTopCategory(userId, month, () -> expenseDAO.loadLedger(userId));
+    }
+
+    public List<MainView.Expense> getExpensesPage(String sortProperty, boolean descending, MainView.Expense after, int skip, int limit) {
+        return expenseDAO.getExpensesPage(sortProperty, descending, after, skip, limit);
+    }
+
+    public List<MainView.Expense> searchExpenses(String text, int offset, int limit) {
+        return expenseDAO.searchExpenses(text, offset, limit);
+    }
+
+    public int estimateExpenseCount() {
+        return expenseDAO.estimateExpenseCount();
+    }
+
+    public List<Income> getAllIncome() {
+        return expenseDAO.getAllIncome();
+    }
+
+    public void saveOrUpdateIncome(Income income) {
+        expenseDAO.saveOrUpdateIncome(income);
+        cache.invalidate(UserSession.getCurrentUserId());
+    }
+
+    public void deleteIncome(int id) {
+        expenseDAO.deleteIncome(id);
+        cache.invalidate(UserSession.getCurrentUserId());
+    }
+
+    public BankBalance getCurrentBankBalance() {
+        int userId = UserSession.getCurrentUserId();
+        return cache.get(userId, BANK_BALANCE, () -> expenseDAO.getCurrentBankBalance(userId));
+    }
+
+    public void saveOrUpdateBankBalance(BankBalance bankBalance) {
+        expenseDAO.saveOrUpdateBankBalance(bankBalance);
+        cache.invalidate(UserSession.getCurrentUserId());
+    }
+
+    public long getCalculatedBalance() {
+        int userId = UserSession.getCurrentUserId();
+        return cache.get(userId, CALCULATED_BALANCE, () -> expenseDAO.getCalculatedBalance(userId));
+    }
+
+    /**
+     * Balance at the end of the day {@code date}, see {@link ExpenseDAO#getBalanceAsOf(int, LocalDate)}.
+     */
+    public long getBalanceAsOf(LocalDate date) {
+        int userId = UserSession.getCurrentUserId();
+        return cache.get(userId, balanceAsOfKey(date), () -> expenseDAO.getBalanceAsOf(userId, date));
+    }
 }
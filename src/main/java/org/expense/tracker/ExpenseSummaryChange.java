@@ -0,0 +1,218 @@
+package org.expense.tracker;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Collects how a set of expense writes changes the expense_month_totals and
+ * expense_category_totals summary tables, and applies the net change inside
+ * the writer's transaction.
+ *
+ * Keys are applied in sorted order, so concurrent writers for the same user
+ * lock the summary rows in the same order and cannot deadlock. Rows whose
+ * counts drop to zero are removed.
+ *
+ * The change is also kept per day and category, so the committed change can
+ * be patched into the user's {@link TimeRollup} with {@link #applyTo(TimeRollup)}
+ * and into their top categories with {@link #forEachDay(DayVisitor)}.
+ */
+class ExpenseSummaryChange {
+
+    private static final String MONTH_UPSERT = """
+            INSERT INTO expense_month_totals AS t (user_id, month, one_off_total, one_off_count,
+                                                   monthly_total, monthly_count, yearly_total, yearly_count)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (user_id, month) DO UPDATE SET
+                one_off_total = t.one_off_total + EXCLUDED.one_off_total,
+                one_off_count = t.one_off_count + EXCLUDED.one_off_count,
+                monthly_total = t.monthly_total + EXCLUDED.monthly_total,
+                monthly_count = t.monthly_count + EXCLUDED.monthly_count,
+                yearly_total = t.yearly_total + EXCLUDED.yearly_total,
+                yearly_count = t.yearly_count + EXCLUDED.yearly_count
+            """;
+    private static final String CATEGORY_UPSERT = """
+            INSERT INTO expense_category_totals AS t (user_id, category, total, expense_count)
+            VALUES (?, ?, ?, ?)
+            ON CONFLICT (user_id, category) DO UPDATE SET
+                total = t.total + EXCLUDED.total,
+                expense_count = t.expense_count + EXCLUDED.expense_count
+            """;
+    private static final String MONTH_CLEANUP = """
+            DELETE FROM expense_month_totals
+            WHERE user_id = ? AND month = ANY (?)
+              AND one_off_count = 0 AND monthly_count = 0 AND yearly_count = 0
+            """;
+    private static final String CATEGORY_CLEANUP =
+            "DELETE FROM expense_category_totals WHERE user_id = ? AND category = ANY (?) AND expense_count = 0";
+
+    private final Map<LocalDate, MonthChange> months = new TreeMap<>();
+    private final Map<String, CategoryChange> categories = new TreeMap<>();
+    // Cents per day and category (null included), indexed by recurrence ordinal
+    private final Map<LocalDate, Map<String, long[]>> days = new TreeMap<>();
+    private boolean removals;
+
+    /**
+     * Counts the expense in the current row, read from the columns amount,
+     * category, date and recurrence_type.
+     */
+    void add(ResultSet rs) throws SQLException {
+        add(rs.getDate("date").toLocalDate(), rs.getString("category"), rs.getString("recurrence_type"),
+                Money.getCents(rs, "amount"), 1);
+    }
+
+    /**
+     * Takes the expense in the current row back out, see {@link #add(ResultSet)}.
+     */
+    void remove(ResultSet rs) throws SQLException {
+        add(rs.getDate("date").toLocalDate(), rs.getString("category"), rs.getString("recurrence_type"),
+                -Money.getCents(rs, "amount"), -1);
+    }
+
+    /**
+     * Counts {@code count} expenses dated in the month of {@code date} with a
+     * combined {@code amountCents}. Negative values take expenses back out.
+     */
+    void add(LocalDate date, String category, String recurrenceType, long amountCents, long count) {
+        MonthChange month = months.computeIfAbsent(date.withDayOfMonth(1), m -> new MonthChange());
+        Recurrence recurrence = Recurrence.of(recurrenceType);
+        days.computeIfAbsent(date, d -> new HashMap<>())
+                .computeIfAbsent(category, c -> new long[Recurrence.values().length])[recurrence.ordinal()] += amountCents;
+        switch (recurrence) {
+            case NONE -> {
+                month.oneOffCents += amountCents;
+                month.oneOffCount += count;
+            }
+            case MONTHLY -> {
+                month.monthlyCents += amountCents;
+                month.monthlyCount += count;
+            }
+            case YEARLY -> {
+                month.yearlyCents += amountCents;
+                month.yearlyCount += count;
+            }
+        }
+
+        // Rows from before V1 may lack a category, the summary has no row for them
+        if (category != null) {
+            CategoryChange categoryChange = categories.computeIfAbsent(category, c -> new CategoryChange());
+            categoryChange.cents += amountCents;
+            categoryChange.count += count;
+        }
+
+        if (count < 0) {
+            removals = true;
+        }
+    }
+
+    boolean isEmpty() {
+        return months.isEmpty();
+    }
+
+    /**
+     * Adds the change to the rollup. Returns false if the rollup does not
+     * cover a changed day and has to be rebuilt. Days are applied in date
+     * order, so that happens before anything was added.
+     */
+    boolean applyTo(TimeRollup rollup) {
+        for (Map.Entry<LocalDate, Map<String, long[]>> entry : days.entrySet()) {
+            for (long[] cents : entry.getValue().values()) {
+                for (Recurrence recurrence : Recurrence.values()) {
+                    if (cents[recurrence.ordinal()] != 0
+                            && !rollup.addExpense(entry.getKey(), recurrence, cents[recurrence.ordinal()])) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Visits the net change of every day, category and recurrence, in date order.
+     */
+    void forEachDay(DayVisitor visitor) {
+        for (Map.Entry<LocalDate, Map<String, long[]>> entry : days.entrySet()) {
+            for (Map.Entry<String, long[]> category : entry.getValue().entrySet()) {
+                for (Recurrence recurrence : Recurrence.values()) {
+                    long cents = category.getValue()[recurrence.ordinal()];
+                    if (cents != 0) {
+                        visitor.visit(entry.getKey(), category.getKey(), recurrence, cents);
+                    }
+                }
+            }
+        }
+    }
+
+    void apply(Connection connection, StatementCache statementCache, int userId) throws SQLException {
+        if (isEmpty()) {
+            return;
+        }
+
+        try (PreparedStatement stmt = statementCache.prepare(connection, MONTH_UPSERT)) {
+            for (Map.Entry<LocalDate, MonthChange> entry : months.entrySet()) {
+                MonthChange change = entry.getValue();
+                stmt.setInt(1, userId);
+                stmt.setDate(2, Date.valueOf(entry.getKey()));
+                Money.setCents(stmt, 3, change.oneOffCents);
+                stmt.setLong(4, change.oneOffCount);
+                Money.setCents(stmt, 5, change.monthlyCents);
+                stmt.setLong(6, change.monthlyCount);
+                Money.setCents(stmt, 7, change.yearlyCents);
+                stmt.setLong(8, change.yearlyCount);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+
+        if (!categories.isEmpty()) {
+            try (PreparedStatement stmt = statementCache.prepare(connection, CATEGORY_UPSERT)) {
+                for (Map.Entry<String, CategoryChange> entry : categories.entrySet()) {
+                    stmt.setInt(1, userId);
+                    stmt.setString(2, entry.getKey());
+                    Money.setCents(stmt, 3, entry.getValue().cents);
+                    stmt.setLong(4, entry.getValue().count);
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+            }
+        }
+
+        if (removals) {
+            try (PreparedStatement stmt = statementCache.prepare(connection, MONTH_CLEANUP)) {
+                stmt.setInt(1, userId);
+                stmt.setArray(2, connection.createArrayOf("date", months.keySet().stream().map(Date::valueOf).toArray()));
+                stmt.executeUpdate();
+            }
+            try (PreparedStatement stmt = statementCache.prepare(connection, CATEGORY_CLEANUP)) {
+                stmt.setInt(1, userId);
+                stmt.setArray(2, connection.createArrayOf("varchar", categories.keySet().toArray()));
+                stmt.executeUpdate();
+            }
+        }
+    }
+
+    interface DayVisitor {
+        void visit(LocalDate date, String category, Recurrence recurrence, long cents);
+    }
+
+    private static class MonthChange {
+        private long oneOffCents;
+        private long oneOffCount;
+        private long monthlyCents;
+        private long monthlyCount;
+        private long yearlyCents;
+        private long yearlyCount;
+    }
+
+    private static class CategoryChange {
+        private long cents;
+        private long count;
+    }
+}
@@ -0,0 +1,47 @@
+package org.expense.tracker;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * One expense write waiting in the {@link ExpenseWriteQueue}. The result
+ * completes once the write is committed, or exceptionally if it failed.
+ */
+public class ExpenseWrite {
+
+    public enum Type { INSERT, UPDATE, DELETE }
+
+    private final Type type;
+    private final int userId;
+    private final MainView.Expense expense;
+    private final int expenseId;
+    private final CompletableFuture<Void> result = new CompletableFuture<>();
+
+    private ExpenseWrite(Type type, int userId, MainView.Expense expense, int expenseId) {
+        this.type = type;
+        this.userId = userId;
+        this.expense = expense;
+        this.expenseId = expenseId;
+    }
+
+    public static ExpenseWrite insert(int userId, MainView.Expense expense) {
+        return new ExpenseWrite(Type.INSERT, userId, expense, -1);
+    }
+
+    public static ExpenseWrite update(int userId, MainView.Expense expense) {
+        return new ExpenseWrite(Type.UPDATE, userId, expense, expense.getId());
+    }
+
+    public static ExpenseWrite delete(int userId, int expenseId) {
+        return new ExpenseWrite(Type.DELETE, userId, null, expenseId);
+    }
+
+    public Type getType() { return type; }
+
+    public int getUserId() { return userId; }
+
+    public MainView.Expense getExpense() { return expense; }
+
+    public int getExpenseId() { return expenseId; }
+
+    public CompletableFuture<Void> getResult() { return result; }
+}
@@ -0,0 +1,169 @@
+package org.expense.tracker;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind for expense entry. Writes are queued and a single flusher
+ * thread commits them in groups, one transaction per group, as soon as the
+ * flush interval has passed or the group is full. With many users saving at
+ * once this turns one commit per click into one commit per group.
+ *
+ * The queue is first in, first out and there is only one flusher, so each
+ * user's writes reach the database in the order they were made. If a group
+ * fails with an SQLException, its writes are retried one transaction each so
+ * a single bad write only fails itself. Any other exception fails the whole
+ * group without a retry, and the flusher carries on with the next one. On
+ * shutdown the queue stops taking writes and is drained before the
+ * application closes the connection pool.
+ *
+ * Disabled by default, in which case nothing is started and ExpenseService
+ * writes synchronously.
+ */
+@Component
+public class ExpenseWriteQueue {
+
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    private final ExpenseDAO expenseDAO;
+    private final boolean enabled;
+    private final long flushIntervalNanos;
+    private final int maxBatch;
+    private final BlockingQueue<ExpenseWrite> queue = new LinkedBlockingQueue<>();
+    private final Thread flusher;
+    private volatile boolean running;
+
+    public ExpenseWriteQueue(ExpenseDAO expenseDAO,
+                             @Value("${app.write-behind.enabled:false}") boolean enabled,
+                             @Value("${app.write-behind.flush-interval:20ms}") Duration flushInterval,
+                             @Value("${app.write-behind.max-batch:500}") int maxBatch) {
+        this.expenseDAO = expenseDAO;
+        this.enabled = enabled;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.maxBatch = Math.max(1, maxBatch);
+        this.running = enabled;
+        this.flusher = enabled ? Thread.ofPlatform().name("expense-write-behind").daemon().start(this::run) : null;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queues the write and returns its result. After shutdown has started the
+     * write is applied on the calling thread instead, once the writes still
+     * queued have been drained so it cannot overtake them.
+     */
+    public synchronized CompletableFuture<Void> submit(ExpenseWrite write) {
+        if (running) {
+            queue.add(write);
+        } else {
+            awaitDrained();
+            flush(List.of(write));
+        }
+        return write.getResult();
+    }
+
+    private void awaitDrained() {
+        boolean interrupted = false;
+        while (flusher != null && flusher.isAlive()) {
+            try {
+                flusher.join();
+            } catch (InterruptedException e) {
+                // Applying the write early would break the order, so keep waiting
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        List<ExpenseWrite> batch = new ArrayList<>();
+        // Writes queued before shutdown are still flushed after running turns false
+        while (running || !queue.isEmpty()) {
+            try {
+                ExpenseWrite first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                // Keep collecting until the interval since the first write has passed or the batch is full
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                while (batch.size() < maxBatch) {
+                    long remaining = deadline - System.nanoTime();
+                    ExpenseWrite next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    queue.drainTo(batch, maxBatch - batch.size());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                queue.drainTo(batch);
+                flush(batch);
+                return;
+            }
+
+            flush(batch);
+            batch.clear();
+        }
+    }
+
+    private void flush(List<ExpenseWrite> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            expenseDAO.applyWrites(batch);
+            batch.forEach(write -> write.getResult().complete(null));
+            return;
+        } catch (SQLException e) {
+            if (batch.size() == 1) {
+                e.printStackTrace();
+                batch.get(0).getResult().completeExceptionally(e);
+                return;
+            }
+        } catch (RuntimeException e) {
+            // A bug rather than a bad write, and the group may already be committed, so don't retry
+            e.printStackTrace();
+            batch.forEach(write -> write.getResult().completeExceptionally(e));
+            return;
+        }
+
+        // The group was rolled back, retry each write on its own to find the failing ones
+        for (ExpenseWrite write : batch) {
+            try {
+                expenseDAO.applyWrites(List.of(write));
+                write.getResult().complete(null);
+            } catch (SQLException | RuntimeException e) {
+                e.printStackTrace();
+                write.getResult().completeExceptionally(e);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (flusher == null) {
+            return;
+        }
+        synchronized (this) {
+            running = false;
+        }
+        flusher.join();
+    }
+}
@@ -0,0 +1,106 @@
+package org.expense.tracker;
+
+import com.vaadin.flow.component.html.Anchor;
+import com.vaadin.flow.component.html.AttachmentType;
+import com.vaadin.flow.component.html.H2;
+import com.vaadin.flow.component.html.H3;
+import com.vaadin.flow.component.html.Paragraph;
+import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
+import com.vaadin.flow.component.orderedlayout.VerticalLayout;
+import com.vaadin.flow.router.PageTitle;
+import com.vaadin.flow.router.Route;
+import com.vaadin.flow.server.streams.DownloadHandler;
+
+import java.io.OutputStream;
+import java.time.LocalDate;
+
+@Route(value = "export", layout = MainLayout.class)
+@PageTitle("Export")
+public class ExportView extends VerticalLayout {
+
+    private final ExpenseExportService exportService;
+    private final int userId;
+
+    public ExportView(ExpenseExportService exportService) {
+        this.exportService = exportService;
+        // Downloads are served outside the UI thread, so the user id is captured up front
+        this.userId = UserSession.getCurrentUserId();
+
+        setSizeFull();
+        setPadding(true);
+        setSpacing(true);
+        getStyle().set("background", "var(--lumo-contrast-5pct)");
+
+        // Header
+        H2 title = new H2("📤 Export");
+        title.getStyle()
+                .set("margin", "0 0 1.5rem 0")
+                .set("color", "var(--lumo-primary-text-color)")
+                .set("font-weight", "700")
+                .set("font-size", "2rem");
+
+        VerticalLayout expensesCard = createDownloadCard("Expenses",
+                "All expenses, oldest first. The CSV file can be imported again.", true);
+        VerticalLayout incomeCard = createDownloadCard("Monthly Income",
+                "All monthly income entries, oldest first.", false);
+
+        add(title, expensesCard, incomeCard);
+    }
+
+    private VerticalLayout createDownloadCard(String heading, String description, boolean expenses) {
+        VerticalLayout card = new VerticalLayout();
+        card.getStyle()
+                .set("background", "var(--lumo-base-color)")
+                .set("border", "1px solid var(--lumo-contrast-10pct)")
+                .set("border-radius", "12px")
+                .set("padding", "1.5rem")
+                .set("box-shadow", "0 2px 8px rgba(0,0,0,0.1)");
+
+        H3 cardTitle = new H3(heading);
+        cardTitle.getStyle()
+                .set("margin", "0 0 1rem 0")
+                .set("font-size", "1.3rem")
+                .set("color", "var(--lumo-secondary-text-color)");
+
+        Paragraph help = new Paragraph(description);
+        help.getStyle()
+                .set("color", "var(--lumo-secondary-text-color)")
+                .set("margin", "0 0 1rem 0");
+
+        HorizontalLayout links = new HorizontalLayout(
+                createDownloadLink("CSV", expenses, ExpenseExportService.Format.CSV),
+                createDownloadLink("JSON Lines", expenses, ExpenseExportService.Format.JSON_LINES)
+        );
+        links.setSpacing(true);
+
+        card.add(cardTitle, help, links);
+        return card;
+    }
+
+    private Anchor createDownloadLink(String text, boolean expenses, ExpenseExportService.Format format) {
+        String fileName = (expenses ? "expenses-" : "income-") + LocalDate.now() + "." + format.getExtension();
+
+        DownloadHandler handler = event -> {
+            event.setFileName(fileName);
+            event.setContentType(format.getContentType());
+            // Rows are written as they are read, nothing is buffered per file
+            try (OutputStream out = event.getOutputStream()) {
+                if (expenses) {
+                    exportService.exportExpenses(userId, format, out);
+                } else {
+                    exportService.exportIncome(userId, format, out);
+                }
+            }
+        };
+
+        Anchor link = new Anchor(handler, AttachmentType.DOWNLOAD, "⬇ " + text);
+        link.getStyle()
+                .set("padding", "0.5rem 1rem")
+                .set("border-radius", "8px")
+                .set("background", "var(--lumo-primary-color-10pct)")
+                .set("color", "var(--lumo-primary-text-color)")
+                .set("font-weight", "600")
+                .set("text-decoration", "none");
+        return link;
+    }
+}
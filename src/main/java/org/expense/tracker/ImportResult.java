@@ -0,0 +1,23 @@
+package org.expense.tracker;
+
+import java.util.List;
+
+public class ImportResult {
+    private final long imported;
+    private final long rejected;
+    private final List<String> errors;
+
+    public ImportResult(long imported, long rejected, List<String> errors) {
+        this.imported = imported;
+        this.rejected = rejected;
+        this.errors = errors;
+    }
+
+    public long getImported() { return imported; }
+
+    public long getRejected() { return rejected; }
+
+    public List<String> getErrors() { return errors; }
+
+    public boolean isFailed() { return imported < 0; }
+}
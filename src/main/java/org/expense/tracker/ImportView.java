@@ -0,0 +1,140 @@
+package org.expense.tracker;
+
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.component.checkbox.Checkbox;
+import com.vaadin.flow.component.html.H2;
+import com.vaadin.flow.component.html.H3;
+import com.vaadin.flow.component.html.Paragraph;
+import com.vaadin.flow.component.html.Span;
+import com.vaadin.flow.component.notification.Notification;
+import com.vaadin.flow.component.notification.NotificationVariant;
+import com.vaadin.flow.component.orderedlayout.VerticalLayout;
+import com.vaadin.flow.component.upload.Upload;
+import com.vaadin.flow.router.PageTitle;
+import com.vaadin.flow.router.Route;
+
+@Route(value = "import", layout = MainLayout.class)
+@PageTitle("Import Expenses")
+public class ImportView extends VerticalLayout {
+
+    private final ExpenseImportService importService;
+    private Span resultSummary;
+    private VerticalLayout errorList;
+    // Read by the upload handler, which runs outside the UI thread
+    private volatile CsvExpenseReader.AmountSigns amountSigns = CsvExpenseReader.AmountSigns.EXPENSES_POSITIVE;
+
+    public ImportView(ExpenseImportService importService) {
+        this.importService = importService;
+
+        setSizeFull();
+        setPadding(true);
+        setSpacing(true);
+        getStyle().set("background", "var(--lumo-contrast-5pct)");
+
+        // Header
+        H2 title = new H2("📥 Import Expenses");
+        title.getStyle()
+                .set("margin", "0 0 1.5rem 0")
+                .set("color", "var(--lumo-primary-text-color)")
+                .set("font-weight", "700")
+                .set("font-size", "2rem");
+
+        VerticalLayout uploadCard = createUploadCard();
+        VerticalLayout resultCard = createResultCard();
+
+        add(title, uploadCard, resultCard);
+    }
+
+    private VerticalLayout createUploadCard() {
+        VerticalLayout card = new VerticalLayout();
+        card.getStyle()
+                .set("background", "var(--lumo-base-color)")
+                .set("border", "1px solid var(--lumo-contrast-10pct)")
+                .set("border-radius", "12px")
+                .set("padding", "1.5rem")
+                .set("box-shadow", "0 2px 8px rgba(0,0,0,0.1)");
+
+        H3 cardTitle = new H3("CSV File");
+        cardTitle.getStyle()
+                .set("margin", "0 0 1rem 0")
+                .set("font-size", "1.3rem")
+                .set("color", "var(--lumo-secondary-text-color)");
+
+        Paragraph help = new Paragraph("Columns: date, amount, category, description, recurrence_type. "
+                + "A header row is optional. Dates can be 2024-01-31 or 31.01.2024, amounts must be below 1,000,000,000,000 "
+                + "and recurrence_type is empty, Monthly or Annually.");
+        help.getStyle()
+                .set("color", "var(--lumo-secondary-text-color)")
+                .set("margin", "0 0 1rem 0");
+
+        Checkbox signedExport = new Checkbox("Signed bank export: expenses are negative, credits are skipped");
+        signedExport.addValueChangeListener(e -> amountSigns = e.getValue()
+                ? CsvExpenseReader.AmountSigns.EXPENSES_NEGATIVE
+                : CsvExpenseReader.AmountSigns.EXPENSES_POSITIVE);
+
+        // The user id is captured here because the upload is handled outside the UI thread
+        int userId = UserSession.getCurrentUserId();
+        UI ui = UI.getCurrent();
+
+        Upload upload = new Upload(event -> {
+            ImportResult result = importService.importCsv(userId, event.getInputStream(), amountSigns);
+            ui.access(() -> showResult(result));
+        });
+        upload.setAcceptedFileTypes(".csv", "text/csv");
+        upload.setMaxFiles(1);
+        upload.setWidthFull();
+
+        card.add(cardTitle, help, signedExport, upload);
+        return card;
+    }
+
+    private VerticalLayout createResultCard() {
+        VerticalLayout card = new VerticalLayout();
+        card.getStyle()
+                .set("background", "var(--lumo-base-color)")
+                .set("border", "1px solid var(--lumo-contrast-10pct)")
+                .set("border-radius", "12px")
+                .set("padding", "1.5rem")
+                .set("box-shadow", "0 2px 8px rgba(0,0,0,0.1)");
+
+        H3 cardTitle = new H3("Result");
+        cardTitle.getStyle()
+                .set("margin", "0 0 1rem 0")
+                .set("font-size", "1.3rem")
+                .set("color", "var(--lumo-secondary-text-color)");
+
+        resultSummary = new Span("No file imported yet");
+        resultSummary.getStyle()
+                .set("font-size", "1.1rem")
+                .set("font-weight", "600");
+
+        errorList = new VerticalLayout();
+        errorList.setPadding(false);
+        errorList.setSpacing(false);
+
+        card.add(cardTitle, resultSummary, errorList);
+        return card;
+    }
+
+    private void showResult(ImportResult result) {
+        errorList.removeAll();
+        for (String error : result.getErrors()) {
+            Span errorSpan = new Span(error);
+            errorSpan.getStyle()
+                    .set("color", "var(--lumo-error-text-color)")
+                    .set("font-size", "0.9rem");
+            errorList.add(errorSpan);
+        }
+
+        if (result.isFailed()) {
+            resultSummary.setText("Import failed");
+            Notification notification = Notification.show("Import failed, no expenses were saved");
+            notification.addThemeVariants(NotificationVariant.LUMO_ERROR);
+            return;
+        }
+
+        resultSummary.setText(result.getImported() + " expenses imported, " + result.getRejected() + " rows skipped");
+        Notification notification = Notification.show(result.getImported() + " expenses imported");
+        notification.addThemeVariants(NotificationVariant.LUMO_SUCCESS);
+    }
+}
@@ -4,21 +4,21 @@ import java.time.LocalDate;
 
 public class Income {
     private int id;
-    private double amount;
+    private long amountCents;
     private LocalDate month;
 
     public Income() {}
 
-    public Income(double amount, LocalDate month) {
-        this.amount = amount;
+    public Income(long amountCents, LocalDate month) {
+        this.amountCents = amountCents;
         this.month = month;
     }
 
     public int getId() { return id; }
     public void setId(int id) { this.id = id; }
 
-    public double getAmount() { return amount; }
-    public void setAmount(double amount) { this.amount = amount; }
+    public long getAmountCents() { return amountCents; }
+    public void setAmountCents(long amountCents) { this.amountCents = amountCents; }
 
     public LocalDate getMonth() { return month; }
     public void setMonth(LocalDate month) { this.month = month; }
@@ -1,34 +1,60 @@
 package org.expense.tracker;
 
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.component.button.Button;
 import com.vaadin.flow.component.combobox.ComboBox;
 import com.vaadin.flow.component.charts.Chart;
 import com.vaadin.flow.component.charts.model.*;
+import com.vaadin.flow.component.datepicker.DatePicker;
+import com.vaadin.flow.component.html.Span;
+import com.vaadin.flow.component.icon.VaadinIcon;
+import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
 import com.vaadin.flow.component.orderedlayout.VerticalLayout;
 import com.vaadin.flow.router.PageTitle;
 import com.vaadin.flow.router.Route;
 
 import java.time.LocalDate;
 import java.time.format.TextStyle;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Route(value = "compare", layout = MainLayout.class)
 @PageTitle("Income vs Expenses")
 public class IncomeExpenseChartView extends VerticalLayout {
 
+    // The finest resolution that fits the range in this many columns is used
+    private static final int MAX_BUCKETS = 60;
+    private static final int MIN_RANGE_DAYS = 7;
+    // Ranges stay within MAX_BUCKETS whole years ending this far ahead, so even
+    // the widest one fits in year columns and the rollup never grows past it
+    private static final int MAX_YEARS_AHEAD = 10;
+
     private final Chart chart;
     private final Configuration conf;
     private final ComboBox<String> filterComboBox;
+    private final DatePicker fromPicker = new DatePicker("From");
+    private final DatePicker toPicker = new DatePicker("To");
+    private final Span resolutionLabel = new Span();
 
-    private final DBConnect db;
-    private final ExpenseDAO dao;
-
-    private final List<MainView.Expense> allExpenses;
-    private final List<Income> allIncome;
+    private final AsyncExpenseService expenseService;
+    private final LoadingPlaceholder placeholder = new LoadingPlaceholder("400px");
+    private final int userId;
+    private final UI ui;
+    private final LocalDate earliest;
+    private final LocalDate latest;
 
     private Chart currentChart;
+    private int chartRequest;
+    private LocalDate rangeFrom;
+    private LocalDate rangeTo;
+
+    public IncomeExpenseChartView(AsyncExpenseService expenseService) {
+        this.expenseService = expenseService;
+        this.userId = UserSession.getCurrentUserId();
+        this.ui = UI.getCurrent();
+        this.latest = LocalDate.now().plusYears(MAX_YEARS_AHEAD).withMonth(12).withDayOfMonth(31);
+        this.earliest = latest.minusYears(MAX_BUCKETS).plusDays(1);
 
-    public IncomeExpenseChartView() {
         setSizeFull();
         setPadding(true);
         setSpacing(true);
@@ -37,14 +63,35 @@ public class IncomeExpenseChartView extends VerticalLayout {
         filterComboBox.setItems("Past 6 months", "Past 12 months", "Future 6 months", "Future 12 months");
         filterComboBox.setValue("Past 12 months");
 
-        add(filterComboBox);
-
-        db = new DBConnect();
-        db.connectToDatabase("expenseTracker", "postgres", "faris123");
-        dao = new ExpenseDAO(db.getConnection());
+        // Zoom keeps the middle of the range, pan moves it by half its length
+        Button panBack = new Button(VaadinIcon.ANGLE_LEFT.create(), e -> pan(-1));
+        Button zoomIn = new Button(VaadinIcon.SEARCH_PLUS.create(), e -> zoom(0.5));
+        Button zoomOut = new Button(VaadinIcon.SEARCH_MINUS.create(), e -> zoom(2));
+        Button panForward = new Button(VaadinIcon.ANGLE_RIGHT.create(), e -> pan(1));
+        panBack.setTooltipText("Earlier");
+        zoomIn.setTooltipText("Zoom in");
+        zoomOut.setTooltipText("Zoom out");
+        panForward.setTooltipText("Later");
+
+        fromPicker.setMin(earliest);
+        fromPicker.setMax(latest);
+        toPicker.setMin(earliest);
+        toPicker.setMax(latest);
+        fromPicker.addValueChangeListener(e -> {
+            if (e.isFromClient() && e.getValue() != null) {
+                setRange(e.getValue(), e.getValue().isAfter(rangeTo) ? e.getValue() : rangeTo);
+            }
+        });
+        toPicker.addValueChangeListener(e -> {
+            if (e.isFromClient() && e.getValue() != null) {
+                setRange(e.getValue().isBefore(rangeFrom) ? e.getValue() : rangeFrom, e.getValue());
+            }
+        });
 
-        allExpenses = dao.getAllExpenses();
-        allIncome = dao.getAllIncome();
+        HorizontalLayout controls = new HorizontalLayout(filterComboBox, fromPicker, toPicker,
+                panBack, zoomIn, zoomOut, panForward, resolutionLabel);
+        controls.setAlignItems(Alignment.BASELINE);
+        add(controls);
 
         chart = new Chart(ChartType.COLUMN);
         conf = chart.getConfiguration();
@@ -63,57 +110,13 @@ public class IncomeExpenseChartView extends VerticalLayout {
 
         filterComboBox.addValueChangeListener(event -> {
             String selectedFilter = event.getValue();
-            updateChart(selectedFilter);
+            if (selectedFilter != null) {
+                updateChart(selectedFilter);
+            }
         });
     }
 
     private void updateChart(String filter) {
-
-        if (currentChart != null) {
-            remove(currentChart);
-        }
-
-        Chart newChart = new Chart(ChartType.COLUMN);
-        Configuration conf = newChart.getConfiguration();
-
-        YAxis y = new YAxis();
-        y.setTitle("Amount (€)");
-        conf.addyAxis(y);
-
-        conf.setTooltip(new Tooltip(true));
-        conf.getChart().setStyledMode(true);
-
-        TreeSet<LocalDate> months = new TreeSet<>();
-        Map<LocalDate, Double> incomeByMonth = new HashMap<>();
-        Map<LocalDate, Double> expensesByMonth = new HashMap<>();
-
-        for (Income income : allIncome) {
-            LocalDate month = income.getMonth().withDayOfMonth(1);
-            months.add(month);
-            incomeByMonth.put(month, incomeByMonth.getOrDefault(month, 0.0) + income.getAmount());
-        }
-
-        for (MainView.Expense expense : allExpenses) {
-            LocalDate startMonth = expense.getDate().withDayOfMonth(1);
-            if (expense.getRecurring()) {
-                for (int i = 0; i < 36; i++) {
-                    LocalDate recurringMonth = "Monthly".equals(expense.getRecurrenceType())
-                            ? startMonth.plusMonths(i)
-                            : startMonth.plusYears(i);
-
-                    if (recurringMonth.isAfter(LocalDate.now().plusMonths(12))) {
-                        break;
-                    }
-
-                    months.add(recurringMonth);
-                    expensesByMonth.put(recurringMonth, expensesByMonth.getOrDefault(recurringMonth, 0.0) + expense.getAmount());
-                }
-            } else {
-                months.add(startMonth);
-                expensesByMonth.put(startMonth, expensesByMonth.getOrDefault(startMonth, 0.0) + expense.getAmount());
-            }
-        }
-
         LocalDate now = LocalDate.now().withDayOfMonth(1);
         LocalDate startFilter, endFilter;
 
@@ -140,13 +143,79 @@ public class IncomeExpenseChartView extends VerticalLayout {
                 break;
         }
 
-        List<LocalDate> filteredMonths = months.stream()
-                .filter(month -> !month.isBefore(startFilter) && !month.isAfter(endFilter))
-                .sorted()
-                .toList();
+        setRange(startFilter, endFilter.plusMonths(1).minusDays(1));
+    }
+
+    private void zoom(double factor) {
+        long days = ChronoUnit.DAYS.between(rangeFrom, rangeTo) + 1;
+        long newDays = Math.max(MIN_RANGE_DAYS, Math.round(days * factor));
+        LocalDate from = rangeFrom.plusDays((days - newDays) / 2);
+        setRange(from, from.plusDays(newDays - 1));
+    }
+
+    private void pan(int direction) {
+        long shift = direction * Math.max(1, (ChronoUnit.DAYS.between(rangeFrom, rangeTo) + 1) / 2);
+        setRange(rangeFrom.plusDays(shift), rangeTo.plusDays(shift));
+    }
+
+    private void setRange(LocalDate from, LocalDate to) {
+        // Shift the range back inside the allowed years, cutting it if it is wider
+        if (to.isAfter(latest)) {
+            from = from.minusDays(ChronoUnit.DAYS.between(latest, to));
+            to = latest;
+        }
+        if (from.isBefore(earliest)) {
+            to = to.plusDays(ChronoUnit.DAYS.between(from, earliest));
+            to = to.isAfter(latest) ? latest : to;
+            from = earliest;
+        }
+
+        rangeFrom = from;
+        rangeTo = to;
+        fromPicker.setValue(from);
+        toPicker.setValue(to);
+
+        if (currentChart != null) {
+            remove(currentChart);
+            currentChart = null;
+        }
+        placeholder.showLoading();
+        if (!placeholder.isAttached()) {
+            add(placeholder);
+        }
 
-        List<String> categories = filteredMonths.stream()
-                .map(month -> month.getMonth().getDisplayName(TextStyle.SHORT, Locale.ENGLISH) + " " + month.getYear())
+        // Only the buckets inside the range are read, at the finest resolution that fits
+        TimeRollup.Resolution resolution = TimeRollup.Resolution.finestFor(from, to, MAX_BUCKETS);
+        resolutionLabel.setText("By " + resolution.name().toLowerCase(Locale.ROOT));
+        int request = ++chartRequest;
+        expenseService.getBuckets(userId, resolution, from, to)
+                .handle((buckets, error) -> error == null ? buckets : null)
+                .thenAccept(ui.accessLater(buckets -> {
+                    // Another range was picked while this one was loading
+                    if (request != chartRequest) {
+                        return;
+                    }
+                    if (buckets == null) {
+                        placeholder.showError();
+                    } else {
+                        showChart(resolution, buckets);
+                    }
+                }, null));
+    }
+
+    private void showChart(TimeRollup.Resolution resolution, List<TimeBucket> buckets) {
+        Chart newChart = new Chart(ChartType.COLUMN);
+        Configuration conf = newChart.getConfiguration();
+
+        YAxis y = new YAxis();
+        y.setTitle("Amount (€)");
+        conf.addyAxis(y);
+
+        conf.setTooltip(new Tooltip(true));
+        conf.getChart().setStyledMode(true);
+
+        List<String> categories = buckets.stream()
+                .map(bucket -> label(resolution, bucket.getStart()))
                 .toList();
 
         XAxis x = new XAxis();
@@ -156,16 +225,26 @@ public class IncomeExpenseChartView extends VerticalLayout {
         ListSeries incomeSeries = new ListSeries("Income");
         ListSeries expenseSeries = new ListSeries("Expenses");
 
-        for (LocalDate month : filteredMonths) {
-            incomeSeries.addData(incomeByMonth.getOrDefault(month, 0.0));
-            expenseSeries.addData(expensesByMonth.getOrDefault(month, 0.0));
+        for (TimeBucket bucket : buckets) {
+            incomeSeries.addData(Money.toDouble(bucket.getIncomeCents()));
+            expenseSeries.addData(Money.toDouble(bucket.getExpensesCents()));
         }
 
         conf.addSeries(incomeSeries);
         conf.addSeries(expenseSeries);
 
         currentChart = newChart;
-        add(currentChart);
+        replace(placeholder, currentChart);
+    }
+
+    private static String label(TimeRollup.Resolution resolution, LocalDate start) {
+        String month = start.getMonth().getDisplayName(TextStyle.SHORT, Locale.ENGLISH);
+        return switch (resolution) {
+            case DAY, WEEK -> start.getDayOfMonth() + " " + month + " " + start.getYear();
+            case MONTH -> month + " " + start.getYear();
+            case QUARTER -> "Q" + ((start.getMonthValue() - 1) / 3 + 1) + " " + start.getYear();
+            case YEAR -> String.valueOf(start.getYear());
+        };
     }
 
 }
@@ -0,0 +1,111 @@
+package org.expense.tracker;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A user's expenses held column by column in primitive arrays, for the
+ * summaries that scan every expense. Compared to a list of
+ * {@link MainView.Expense} there is no object per row: amounts are cents in
+ * a long, dates are epoch days, categories are ids into a shared dictionary
+ * and the recurrence is a byte. A scan reads a few arrays front to back,
+ * see {@link DashboardMetrics}.
+ *
+ * Loaded in one pass by {@link ExpenseDAO#loadLedger(int)} and not updated
+ * afterwards, reload it after writes.
+ */
+public final class Ledger {
+
+    static final int NO_CATEGORY = -1;
+    private static final Recurrence[] RECURRENCES = Recurrence.values();
+
+    private final int[] epochDays;
+    // Month index of each date, kept next to the day so recurrence checks need no date math
+    private final int[] months;
+    private final long[] cents;
+    private final int[] categoryIds;
+    private final byte[] recurrences;
+    private final String[] categories;
+    private final int size;
+
+    private Ledger(Builder builder) {
+        this.size = builder.size;
+        this.epochDays = Arrays.copyOf(builder.epochDays, size);
+        this.months = Arrays.copyOf(builder.months, size);
+        this.cents = Arrays.copyOf(builder.cents, size);
+        this.categoryIds = Arrays.copyOf(builder.categoryIds, size);
+        this.recurrences = Arrays.copyOf(builder.recurrences, size);
+        this.categories = builder.categoryNames();
+    }
+
+    public int size() { return size; }
+
+    public LocalDate getDate(int row) { return LocalDate.ofEpochDay(epochDays[row]); }
+
+    public long getCents(int row) { return cents[row]; }
+
+    /**
+     * The row's category, or null for rows recorded without one.
+     */
+    public String getCategory(int row) {
+        int id = categoryIds[row];
+        return id == NO_CATEGORY ? null : categories[id];
+    }
+
+    public Recurrence getRecurrence(int row) { return RECURRENCES[recurrences[row]]; }
+
+    // Raw columns for aggregators in this package
+
+    int getMonthIndex(int row) { return months[row]; }
+
+    int getCategoryId(int row) { return categoryIds[row]; }
+
+    int getCategoryCount() { return categories.length; }
+
+    String getCategoryName(int id) { return categories[id]; }
+
+    /**
+     * Collects rows into growing columns. Categories get ids in the order they are first seen.
+     */
+    public static final class Builder {
+
+        private int[] epochDays = new int[64];
+        private int[] months = new int[64];
+        private long[] cents = new long[64];
+        private int[] categoryIds = new int[64];
+        private byte[] recurrences = new byte[64];
+        private final Map<String, Integer> categoryIdsByName = new HashMap<>();
+        private int size;
+
+        public Builder add(LocalDate date, long amountCents, String category, String recurrenceType) {
+            if (size == epochDays.length) {
+                int capacity = size * 2;
+                epochDays = Arrays.copyOf(epochDays, capacity);
+                months = Arrays.copyOf(months, capacity);
+                cents = Arrays.copyOf(cents, capacity);
+                categoryIds = Arrays.copyOf(categoryIds, capacity);
+                recurrences = Arrays.copyOf(recurrences, capacity);
+            }
+            epochDays[size] = (int) date.toEpochDay();
+            months[size] = Recurrence.monthIndex(date);
+            cents[size] = amountCents;
+            categoryIds[size] = category == null ? NO_CATEGORY
+                    : categoryIdsByName.computeIfAbsent(category, c -> categoryIdsByName.size());
+            recurrences[size] = (byte) Recurrence.of(recurrenceType).ordinal();
+            size++;
+            return this;
+        }
+
+        private String[] categoryNames() {
+            String[] names = new String[categoryIdsByName.size()];
+            categoryIdsByName.forEach((name, id) -> names[id] = name);
+            return names;
+        }
+
+        public Ledger build() {
+            return new Ledger(this);
+        }
+    }
+}
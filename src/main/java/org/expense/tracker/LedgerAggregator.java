@@ -0,0 +1,155 @@
+package org.expense.tracker;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
+
+/**
+ * Aggregates a {@link Ledger} in parallel for very large accounts. The rows
+ * are split into chunks, each chunk is reduced into its own partial
+ * accumulator on a dedicated fork/join pool, and the partials are merged.
+ * Ledgers below the parallel threshold are aggregated sequentially on the
+ * calling thread and never touch the pool.
+ *
+ * The pool is separate from the common pool and bounded to {@code parallelism}
+ * threads, by default half the processors, so a heavy ledger cannot take over
+ * every core and the sessions of other users keep running.
+ */
+@Component
+@ManagedResource(objectName = "org.expense.tracker:type=LedgerAggregator")
+public class LedgerAggregator {
+
+    // Smallest chunk worth a task of its own
+    private static final int MIN_CHUNK_ROWS = 16_384;
+    // Chunks per thread, so threads that finish early can steal from slower ones
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private final ForkJoinPool pool;
+    private final int parallelThreshold;
+    private final LongAdder sequentialRuns = new LongAdder();
+    private final LongAdder parallelRuns = new LongAdder();
+
+    public LedgerAggregator(@Value("${app.aggregation.parallelism:0}") int parallelism,
+                            @Value("${app.aggregation.parallel-threshold:100000}") int parallelThreshold) {
+        int threads = parallelism > 0 ? parallelism : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.parallelThreshold = parallelThreshold;
+        // No spare threads beyond the parallelism; the tasks never block, so none are needed
+        this.pool = new ForkJoinPool(threads, LedgerAggregator::newWorker, null, false,
+                0, threads, 1, pool -> true, 60, TimeUnit.SECONDS);
+    }
+
+    private static ForkJoinWorkerThread newWorker(ForkJoinPool pool) {
+        ForkJoinWorkerThread worker = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        worker.setName("ledger-aggregation-" + worker.getPoolIndex());
+        return worker;
+    }
+
+    /**
+     * Reduces every row of the ledger. {@code identity} creates an empty
+     * partial, {@code accumulator} adds a range of rows to it and
+     * {@code combiner} merges two partials, possibly into the first one.
+     */
+    public <A> A aggregate(Ledger ledger, Supplier<A> identity, RangeAccumulator<A> accumulator, BinaryOperator<A> combiner) {
+        int size = ledger.size();
+        if (size < parallelThreshold || pool.getParallelism() == 1) {
+            sequentialRuns.increment();
+            A partial = identity.get();
+            accumulator.accumulate(partial, 0, size);
+            return partial;
+        }
+        parallelRuns.increment();
+        int chunkRows = Math.max(MIN_CHUNK_ROWS, size / (pool.getParallelism() * CHUNKS_PER_THREAD));
+        return pool.invoke(new Chunk<>(identity, accumulator, combiner, 0, size, chunkRows));
+    }
+
+    @ManagedAttribute
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    @ManagedAttribute
+    public int getParallelThreshold() {
+        return parallelThreshold;
+    }
+
+    @ManagedAttribute
+    public long getSequentialRuns() {
+        return sequentialRuns.sum();
+    }
+
+    @ManagedAttribute
+    public long getParallelRuns() {
+        return parallelRuns.sum();
+    }
+
+    @ManagedAttribute
+    public int getActiveThreads() {
+        return pool.getActiveThreadCount();
+    }
+
+    @ManagedAttribute
+    public long getQueuedTasks() {
+        return pool.getQueuedTaskCount() + pool.getQueuedSubmissionCount();
+    }
+
+    @ManagedAttribute
+    public long getSteals() {
+        return pool.getStealCount();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Adds the rows {@code fromRow} (inclusive) to {@code toRow} (exclusive) to a partial.
+     */
+    public interface RangeAccumulator<A> {
+        void accumulate(A partial, int fromRow, int toRow);
+    }
+
+    private static class Chunk<A> extends RecursiveTask<A> {
+        private final Supplier<A> identity;
+        private final RangeAccumulator<A> accumulator;
+        private final BinaryOperator<A> combiner;
+        private final int fromRow;
+        private final int toRow;
+        private final int chunkRows;
+
+        private Chunk(Supplier<A> identity, RangeAccumulator<A> accumulator, BinaryOperator<A> combiner,
+                      int fromRow, int toRow, int chunkRows) {
+            this.identity = identity;
+            this.accumulator = accumulator;
+            this.combiner = combiner;
+            this.fromRow = fromRow;
+            this.toRow = toRow;
+            this.chunkRows = chunkRows;
+        }
+
+        @Override
+        protected A compute() {
+            if (toRow - fromRow <= chunkRows) {
+                A partial = identity.get();
+                accumulator.accumulate(partial, fromRow, toRow);
+                return partial;
+            }
+            int middle = (fromRow + toRow) >>> 1;
+            Chunk<A> left = new Chunk<>(identity, accumulator, combiner, fromRow, middle, chunkRows);
+            Chunk<A> right = new Chunk<>(identity, accumulator, combiner, middle, toRow, chunkRows);
+            left.fork();
+            A rightResult = right.compute();
+            return combiner.apply(left.join(), rightResult);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package org.expense.tracker;
+
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.component.html.Span;
+import com.vaadin.flow.component.orderedlayout.FlexComponent;
+import com.vaadin.flow.component.orderedlayout.VerticalLayout;
+import com.vaadin.flow.component.progressbar.ProgressBar;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Stand-in for a chart while its data is still loading. It takes the chart's
+ * height so the page does not jump when the chart replaces it. If the load
+ * fails, it shows an error instead of loading forever.
+ */
+public class LoadingPlaceholder extends VerticalLayout {
+
+    private final ProgressBar progressBar = new ProgressBar();
+    private final Span label = new Span();
+
+    public LoadingPlaceholder(String height) {
+        setWidthFull();
+        setHeight(height);
+        setJustifyContentMode(FlexComponent.JustifyContentMode.CENTER);
+        setAlignItems(FlexComponent.Alignment.CENTER);
+        getStyle()
+                .set("background", "var(--lumo-contrast-5pct)")
+                .set("border-radius", "12px");
+
+        progressBar.setIndeterminate(true);
+        progressBar.setWidth("50%");
+
+        label.getStyle().set("font-size", "0.9rem");
+
+        add(progressBar, label);
+        showLoading();
+    }
+
+    public void showLoading() {
+        progressBar.setVisible(true);
+        label.setText("Loading…");
+        label.getStyle().set("color", "var(--lumo-secondary-text-color)");
+    }
+
+    public void showError() {
+        progressBar.setVisible(false);
+        label.setText("Could not load this data. Please reload the page to try again.");
+        label.getStyle().set("color", "var(--lumo-error-text-color)");
+    }
+
+    /**
+     * Switches to the error message if {@code load} fails. Call from the UI thread.
+     */
+    public void showErrorIfFailed(CompletableFuture<?> load) {
+        UI ui = UI.getCurrent();
+        load.handle((result, error) -> Optional.ofNullable(error))
+                .thenAccept(ui.accessLater(error -> error.ifPresent(e -> showError()), null));
+    }
+}
@@ -25,10 +25,8 @@ public class LoginView extends VerticalLayout {
     private TextField emailField;
     private boolean isRegistrationMode = false;
 
-    public LoginView() {
-        DBConnect db = new DBConnect();
-        db.connectToDatabase("expenseTracker", "postgres", "faris123");
-        this.userDAO = new UserDAO(db.getConnection());
+    public LoginView(UserDAO userDAO) {
+        this.userDAO = userDAO;
 
         setSizeFull();
         setAlignItems(Alignment.CENTER);
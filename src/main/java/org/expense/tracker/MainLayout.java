@@ -93,9 +93,11 @@ public class MainLayout extends AppLayout implements BeforeEnterObserver {
         RouterLink incomeLink = createStyledRouterLink("💰 Monthly Income", MonthlyIncomeView.class);
         RouterLink compareLink = createStyledRouterLink("📈 Income vs Expenses", IncomeExpenseChartView.class);
         RouterLink bankBalanceLink = createStyledRouterLink("🏦 Bank Balance", BankBalanceView.class);
+        RouterLink importLink = createStyledRouterLink("📥 Import", ImportView.class);
+        RouterLink exportLink = createStyledRouterLink("📤 Export", ExportView.class);
 
         VerticalLayout menuLayout = new VerticalLayout(
-                mainLink, expensesLink, incomeLink, bankBalanceLink, balanceLink, compareLink
+                mainLink, expensesLink, incomeLink, bankBalanceLink, balanceLink, compareLink, importLink, exportLink
         );
         menuLayout.setPadding(false);
         menuLayout.setSpacing(false);
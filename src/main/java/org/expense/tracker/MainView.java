@@ -1,5 +1,6 @@
 package org.expense.tracker;
 
+import com.vaadin.flow.component.UI;
 import com.vaadin.flow.component.button.Button;
 import com.vaadin.flow.component.button.ButtonVariant;
 import com.vaadin.flow.component.combobox.ComboBox;
@@ -16,22 +17,26 @@ import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
 import com.vaadin.flow.component.orderedlayout.VerticalLayout;
 import com.vaadin.flow.component.textfield.NumberField;
 import com.vaadin.flow.component.textfield.TextField;
+import com.vaadin.flow.data.value.ValueChangeMode;
 import com.vaadin.flow.router.PageTitle;
 import com.vaadin.flow.router.Route;
 
 import java.time.LocalDate;
 import java.time.format.TextStyle;
-import java.util.List;
 import java.util.Locale;
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 @Route(value = "Expenses", layout = MainLayout.class)
 @PageTitle("Expenses")
 public class MainView extends VerticalLayout {
 
+    // Shorter texts cannot use the trigram index, so they show everything
+    private static final int MIN_SEARCH_LENGTH = 3;
+
     private final Grid<Expense> expenseGrid = new Grid<>(Expense.class, false);
-    private final ExpenseService expenseService = new ExpenseService();
+    private final ExpenseService expenseService;
+    private final ExpenseGridPager gridPager;
     private Expense selectedExpense = null;
 
     // Form fields as instance variables
@@ -47,7 +52,10 @@ public class MainView extends VerticalLayout {
     private Span topCategorySpan;
     private Span expenseCountSpan;
 
-    public MainView() {
+    public MainView(ExpenseService expenseService) {
+        this.expenseService = expenseService;
+        this.gridPager = new ExpenseGridPager(expenseService);
+
         setSizeFull();
         setPadding(true);
         setSpacing(true);
@@ -232,7 +240,7 @@ public class MainView extends VerticalLayout {
             String recurrenceType = isRecurring ? recurrenceValue : null;
 
             Expense expense = new Expense(
-                    amountField.getValue(),
+                    Money.toCents(amountField.getValue()),
                     categoryField.getValue(),
                     descriptionField.getValue(),
                     datePicker.getValue(),
@@ -240,30 +248,31 @@ public class MainView extends VerticalLayout {
                     recurrenceType
             );
 
+            // With write-behind the save is only queued, so the grid shows it until the write completes
             if (selectedExpense != null) {
                 expense.setId(selectedExpense.getId());
-                expenseService.updateExpense(expense);
-                Notification notification = Notification.show("Expense updated successfully!");
-                notification.addThemeVariants(NotificationVariant.LUMO_SUCCESS);
+                CompletableFuture<Void> write = expenseService.updateExpense(expense);
+                showPending(() -> gridPager.addPendingUpdate(expense));
+                refreshWhenWritten(write, () -> gridPager.forgetPending(expense),
+                        "Expense updated successfully!", "Expense could not be updated");
             } else {
-                expenseService.addExpense(expense);
-                Notification notification = Notification.show("Expense added successfully!");
-                notification.addThemeVariants(NotificationVariant.LUMO_SUCCESS);
+                CompletableFuture<Void> write = expenseService.addExpense(expense);
+                showPending(() -> gridPager.addPendingInsert(expense));
+                refreshWhenWritten(write, () -> gridPager.forgetPending(expense),
+                        "Expense added successfully!", "Expense could not be added");
             }
 
-            updateGrid();
-            updateMonthlySummary(); // Update summary after saving
             clearForm();
         });
 
         deleteButton.addClickListener(e -> {
             if (selectedExpense != null) {
-                expenseService.deleteExpense(selectedExpense.getId());
-                updateGrid();
-                updateMonthlySummary(); // Update summary after deleting
+                int id = selectedExpense.getId();
+                CompletableFuture<Void> write = expenseService.deleteExpense(id);
+                showPending(() -> gridPager.addPendingDelete(id));
+                refreshWhenWritten(write, () -> gridPager.forgetPendingDelete(id),
+                        "Expense deleted successfully!", "Expense could not be deleted");
                 clearForm();
-                Notification notification = Notification.show("Expense deleted successfully!");
-                notification.addThemeVariants(NotificationVariant.LUMO_SUCCESS);
             } else {
                 Notification notification = Notification.show("Please select an expense to delete");
                 notification.addThemeVariants(NotificationVariant.LUMO_ERROR);
@@ -307,14 +316,29 @@ public class MainView extends VerticalLayout {
                 .set("font-size", "1.3rem")
                 .set("color", "var(--lumo-secondary-text-color)");
 
+        // Searches run once typing pauses and stream into the same lazy grid
+        TextField searchField = new TextField();
+        searchField.setPlaceholder("Search description or category");
+        searchField.setPrefixComponent(VaadinIcon.SEARCH.create());
+        searchField.setClearButtonVisible(true);
+        searchField.setValueChangeMode(ValueChangeMode.LAZY);
+        searchField.setWidthFull();
+        searchField.addValueChangeListener(e -> {
+            String text = e.getValue().strip();
+            gridPager.setSearch(text.length() >= MIN_SEARCH_LENGTH ? text : null);
+            updateGrid();
+        });
+
         // Configure grid
-        expenseGrid.addColumn(Expense::getAmount)
+        expenseGrid.addColumn(expense -> Money.toPlainString(expense.getAmountCents()))
                 .setHeader("Amount (€)")
+                .setSortProperty("amount")
                 .setWidth("120px")
                 .setFlexGrow(0);
 
         expenseGrid.addColumn(Expense::getCategory)
                 .setHeader("Category")
+                .setSortProperty("category")
                 .setWidth("150px")
                 .setFlexGrow(0);
 
@@ -324,6 +348,7 @@ public class MainView extends VerticalLayout {
 
         expenseGrid.addColumn(Expense::getDate)
                 .setHeader("Date")
+                .setSortProperty("date")
                 .setWidth("120px")
                 .setFlexGrow(0);
 
@@ -337,104 +362,71 @@ public class MainView extends VerticalLayout {
                 .setWidth("100px")
                 .setFlexGrow(0);
 
-        expenseGrid.setItems(expenseService.getAllExpenses());
+        // Rows are fetched page by page as the user scrolls; the count is only an estimate
+        expenseGrid.setItems(gridPager);
+        expenseGrid.getLazyDataView().setItemCountEstimate(Math.max(1, expenseService.estimateExpenseCount()));
         expenseGrid.setSelectionMode(Grid.SelectionMode.SINGLE);
         expenseGrid.addThemeVariants(GridVariant.LUMO_ROW_STRIPES, GridVariant.LUMO_COLUMN_BORDERS);
         expenseGrid.setHeight("400px");
 
         // Selection handler
         expenseGrid.asSingleSelect().addValueChangeListener(e -> {
-            selectedExpense = e.getValue();
+            // A new expense still waiting in the write-behind queue has no id to edit or delete yet
+            selectedExpense = e.getValue() != null && e.getValue().getId() != null ? e.getValue() : null;
             populateFormFields(selectedExpense);
         });
 
-        card.add(cardTitle, expenseGrid);
+        card.add(cardTitle, searchField, expenseGrid);
         return card;
     }
 
     private void updateMonthlySummary() {
-        List<Expense> allExpenses = expenseService.getAllExpenses();
-        LocalDate now = LocalDate.now();
-        LocalDate currentMonth = now.withDayOfMonth(1);
-
-        // Calculate this month's expenses (including recurring)
-        double thisMonthTotal = 0.0;
-        int thisMonthCount = 0;
-
-        for (Expense expense : allExpenses) {
-            if (isExpenseForMonth(expense, currentMonth)) {
-                thisMonthTotal += expense.getAmount();
-                thisMonthCount++;
-            }
-        }
-
-        // Calculate monthly average for the last 12 months
-        double monthlyAverage = calculateMonthlyAverage(allExpenses, now);
-
-        // Find top category this month
-        String topCategory = findTopCategoryThisMonth(allExpenses, currentMonth);
+        // This month's figures and the 12-month average, in one pass over the ledger
+        LocalDate month = LocalDate.now().withDayOfMonth(1);
+        DashboardMetrics metrics = expenseService.getDashboardMetrics(month, 12);
+        String topCategory = expenseService.getTopCategory(month);
 
         // Update UI components
-        thisMonthSpan.setText("€" + String.format("%.2f", thisMonthTotal));
-        monthlyTotalSpan.setText("€" + String.format("%.2f", monthlyAverage));
-        topCategorySpan.setText(topCategory);
-        expenseCountSpan.setText(String.valueOf(thisMonthCount));
+        thisMonthSpan.setText(Money.format(metrics.getCurrentMonthExpensesCents()));
+        monthlyTotalSpan.setText(Money.format(metrics.getAverageExpensesCents()));
+        topCategorySpan.setText(topCategory != null ? topCategory : "None");
+        expenseCountSpan.setText(String.valueOf(metrics.getCurrentMonthCount()));
     }
 
-    private boolean isExpenseForMonth(Expense expense, LocalDate targetMonth) {
-        LocalDate expenseMonth = expense.getDate().withDayOfMonth(1);
-
-        if (!expense.getRecurring()) {
-            return expenseMonth.equals(targetMonth);
-        } else {
-            // For recurring expenses, check if they apply to the target month
-            if ("Monthly".equals(expense.getRecurrenceType())) {
-                return !expenseMonth.isAfter(targetMonth);
-            } else if ("Annually".equals(expense.getRecurrenceType())) {
-                return expenseMonth.getMonth().equals(targetMonth.getMonth()) &&
-                        !expenseMonth.isAfter(targetMonth);
-            }
-        }
-        return false;
-    }
-
-    private double calculateMonthlyAverage(List<Expense> expenses, LocalDate currentDate) {
-        LocalDate startDate = currentDate.minusMonths(11).withDayOfMonth(1);
-        double total = 0.0;
-        int monthCount = 12;
-
-        for (int i = 0; i < 12; i++) {
-            LocalDate month = startDate.plusMonths(i);
-            double monthTotal = 0.0;
-
-            for (Expense expense : expenses) {
-                if (isExpenseForMonth(expense, month)) {
-                    monthTotal += expense.getAmount();
-                }
-            }
-            total += monthTotal;
+    /**
+     * With write-behind, lays the queued change over the grid right away.
+     * Synchronous writes have already completed and need no pending row.
+     */
+    private void showPending(Runnable addToPager) {
+        if (expenseService.isWriteBehind()) {
+            addToPager.run();
+            expenseGrid.getDataProvider().refreshAll();
         }
-
-        return total / monthCount;
     }
 
-    private String findTopCategoryThisMonth(List<Expense> expenses, LocalDate currentMonth) {
-        Map<String, Double> categoryTotals = expenses.stream()
-                .filter(expense -> isExpenseForMonth(expense, currentMonth))
-                .collect(Collectors.groupingBy(
-                        Expense::getCategory,
-                        Collectors.summingDouble(Expense::getAmount)
-                ));
-
-        return categoryTotals.entrySet().stream()
-                .max(Map.Entry.comparingByValue())
-                .map(Map.Entry::getKey)
-                .orElse("None");
+    /**
+     * Once the write has completed, drops its pending row, tells the user
+     * whether it succeeded and reloads the grid and summary from the
+     * database, which rolls the row back if the write failed.
+     */
+    private void refreshWhenWritten(CompletableFuture<Void> write, Runnable forgetPending,
+                                    String successMessage, String failureMessage) {
+        UI ui = UI.getCurrent();
+        write.handle((result, error) -> Optional.ofNullable(error))
+                .thenAccept(ui.accessLater(error -> {
+                    forgetPending.run();
+                    Notification notification = Notification.show(error.isPresent() ? failureMessage : successMessage);
+                    notification.addThemeVariants(error.isPresent()
+                            ? NotificationVariant.LUMO_ERROR
+                            : NotificationVariant.LUMO_SUCCESS);
+                    updateGrid();
+                    updateMonthlySummary();
+                }, null));
     }
 
     private void updateGrid() {
-        List<Expense> expenses = expenseService.getAllExpenses();
-        expenseGrid.setItems(expenses);
+        gridPager.reset();
+        expenseGrid.getDataProvider().refreshAll();
         selectedExpense = null;
     }
 
@@ -450,7 +442,7 @@ public class MainView extends VerticalLayout {
 
     private void populateFormFields(Expense expense) {
         if (expense != null) {
-            amountField.setValue(expense.getAmount());
+            amountField.setValue(Money.toDouble(expense.getAmountCents()));
             categoryField.setValue(expense.getCategory());
             descriptionField.setValue(expense.getDescription() != null ? expense.getDescription() : "");
             datePicker.setValue(expense.getDate());
@@ -463,7 +455,7 @@ public class MainView extends VerticalLayout {
 
     public static class Expense {
         private Integer id;
-        private Double amount;
+        private long amountCents;
         private String category;
         private String description;
         private LocalDate date;
@@ -472,8 +464,8 @@ public class MainView extends VerticalLayout {
 
         public Expense() {}
 
-        public Expense(Double amount, String category, String description, LocalDate date, boolean recurring, String recurrenceType) {
-            this.amount = amount;
+        public Expense(long amountCents, String category, String description, LocalDate date, boolean recurring, String recurrenceType) {
+            this.amountCents = amountCents;
             this.category = category;
             this.description = description;
             this.date = date;
@@ -484,8 +476,8 @@ public class MainView extends VerticalLayout {
         public Integer getId() { return id; }
         public void setId(Integer id) { this.id = id; }
 
-        public Double getAmount() { return amount; }
-        public void setAmount(Double amount) { this.amount = amount; }
+        public long getAmountCents() { return amountCents; }
+        public void setAmountCents(long amountCents) { this.amountCents = amountCents; }
 
         public String getCategory() { return category; }
         public void setCategory(String category) { this.category = category; }
@@ -0,0 +1,67 @@
+package org.expense.tracker;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Amounts of money are held as a long number of cents everywhere in the
+ * application, so adding them up is exact integer arithmetic and allocates
+ * nothing. The database stores them as NUMERIC(14, 2); this class converts
+ * at the JDBC boundary, at the number fields of the forms and for display.
+ */
+public final class Money {
+
+    private Money() {}
+
+    /**
+     * Reads a NUMERIC column as cents, rounding half up. SQL NULL reads as zero.
+     */
+    public static long getCents(ResultSet rs, String column) throws SQLException {
+        return toCents(rs.getBigDecimal(column));
+    }
+
+    public static void setCents(PreparedStatement stmt, int index, long cents) throws SQLException {
+        stmt.setBigDecimal(index, toBigDecimal(cents));
+    }
+
+    public static long toCents(BigDecimal amount) {
+        return amount == null ? 0 : amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal toBigDecimal(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    /**
+     * Converts a value typed into a number field, rounding half up to the cent.
+     */
+    public static long toCents(double amount) {
+        return toCents(BigDecimal.valueOf(amount));
+    }
+
+    /**
+     * For number fields and chart series, which only take doubles.
+     */
+    public static double toDouble(long cents) {
+        return cents / 100.0;
+    }
+
+    /**
+     * Formats as euros with two decimals, e.g. "€-1234.50".
+     */
+    public static String format(long cents) {
+        return "€" + toPlainString(cents);
+    }
+
+    /**
+     * Two decimals without currency sign or grouping, e.g. "-1234.50".
+     */
+    public static String toPlainString(long cents) {
+        long whole = Math.abs(cents / 100);
+        long fraction = Math.abs(cents % 100);
+        return (cents < 0 ? "-" : "") + whole + (fraction < 10 ? ".0" : ".") + fraction;
+    }
+}
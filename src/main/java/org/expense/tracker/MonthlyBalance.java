@@ -0,0 +1,21 @@
+package org.expense.tracker;
+
+import java.time.LocalDate;
+
+/**
+ * A month's income and expenses together with the running balance at the
+ * end of that month.
+ */
+public class MonthlyBalance extends MonthlyTotal {
+    private long balanceCents;
+
+    public MonthlyBalance() {}
+
+    public MonthlyBalance(LocalDate month, long incomeCents, long expensesCents, long balanceCents) {
+        super(month, incomeCents, expensesCents);
+        this.balanceCents = balanceCents;
+    }
+
+    public long getBalanceCents() { return balanceCents; }
+    public void setBalanceCents(long balanceCents) { this.balanceCents = balanceCents; }
+}
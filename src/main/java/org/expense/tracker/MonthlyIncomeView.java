@@ -28,23 +28,21 @@ import java.util.Locale;
 @PageTitle("Monthly Income")
 public class MonthlyIncomeView extends VerticalLayout {
 
-    private final ExpenseDAO dao;
+    private final ExpenseService expenseService;
     private NumberField amountField;
     private DatePicker monthPicker;
     private Grid<Income> grid;
     private ListDataProvider<Income> dataProvider;
     private Income selectedIncome = null;
 
-    public MonthlyIncomeView() {
+    public MonthlyIncomeView(ExpenseService expenseService) {
+        this.expenseService = expenseService;
+
         setSizeFull();
         setPadding(true);
         setSpacing(true);
         getStyle().set("background", "var(--lumo-contrast-5pct)");
 
-        DBConnect db = new DBConnect();
-        db.connectToDatabase("expenseTracker", "postgres", "faris123");
-        dao = new ExpenseDAO(db.getConnection());
-
         // Header
         H2 title = new H2("💰 Monthly Income Management");
         title.getStyle()
@@ -86,10 +84,13 @@ public class MonthlyIncomeView extends VerticalLayout {
                 .set("color", "white")
                 .set("text-align", "center");
 
-        List<Income> allIncome = dao.getAllIncome();
-        double totalIncome = allIncome.stream().mapToDouble(Income::getAmount).sum();
+        List<Income> allIncome = expenseService.getAllIncome();
+        long totalIncome = 0;
+        for (Income income : allIncome) {
+            totalIncome += income.getAmountCents();
+        }
         int totalMonths = allIncome.size();
-        double avgIncome = totalMonths > 0 ? totalIncome / totalMonths : 0;
+        long avgIncome = totalMonths > 0 ? totalIncome / totalMonths : 0;
 
         H3 summaryTitle = new H3("Income Overview");
         summaryTitle.getStyle()
@@ -101,9 +102,9 @@ public class MonthlyIncomeView extends VerticalLayout {
         statsLayout.setJustifyContentMode(HorizontalLayout.JustifyContentMode.CENTER);
         statsLayout.setSpacing(true);
 
-        VerticalLayout totalCard = createMiniStatCard("Total Income", "€" + String.format("%.2f", totalIncome));
+        VerticalLayout totalCard = createMiniStatCard("Total Income", Money.format(totalIncome));
         VerticalLayout monthsCard = createMiniStatCard("Months Tracked", String.valueOf(totalMonths));
-        VerticalLayout avgCard = createMiniStatCard("Average/Month", "€" + String.format("%.2f", avgIncome));
+        VerticalLayout avgCard = createMiniStatCard("Average/Month", Money.format(avgIncome));
 
         statsLayout.add(totalCard, monthsCard, avgCard);
         card.add(summaryTitle, statsLayout);
@@ -207,9 +208,9 @@ public class MonthlyIncomeView extends VerticalLayout {
             }
 
             LocalDate selectedMonth = monthPicker.getValue().withDayOfMonth(1);
-            Income income = new Income(amountField.getValue(), selectedMonth);
+            Income income = new Income(Money.toCents(amountField.getValue()), selectedMonth);
 
-            dao.saveOrUpdateIncome(income);
+            expenseService.saveOrUpdateIncome(income);
             reloadGrid();
 //            reloadSummary();
             clearForm();
@@ -221,7 +222,7 @@ public class MonthlyIncomeView extends VerticalLayout {
 
         deleteButton.addClickListener(event -> {
             if (selectedIncome != null) {
-                dao.deleteIncome(selectedIncome.getId());
+                expenseService.deleteIncome(selectedIncome.getId());
                 reloadGrid();
                 //reloadSummary();
                 clearForm();
@@ -270,7 +271,7 @@ public class MonthlyIncomeView extends VerticalLayout {
 
         // Amount column with enhanced rendering
         grid.addColumn(new ComponentRenderer<>(income -> {
-                    Span amountSpan = new Span("€" + String.format("%.2f", income.getAmount()));
+                    Span amountSpan = new Span(Money.format(income.getAmountCents()));
                     amountSpan.getStyle()
                             .set("font-weight", "600")
                             .set("color", "var(--lumo-success-color)")
@@ -307,7 +308,7 @@ public class MonthlyIncomeView extends VerticalLayout {
 //            }
         });
 
-        dataProvider = new ListDataProvider<>(dao.getAllIncome());
+        dataProvider = new ListDataProvider<>(expenseService.getAllIncome());
         grid.setDataProvider(dataProvider);
 
         card.add(cardTitle, grid);
@@ -316,7 +317,7 @@ public class MonthlyIncomeView extends VerticalLayout {
 
     private void populateFormFields(Income income) {
         if (income != null) {
-            amountField.setValue(income.getAmount());
+            amountField.setValue(Money.toDouble(income.getAmountCents()));
             monthPicker.setValue(income.getMonth());
         } else {
             clearForm();
@@ -331,7 +332,7 @@ public class MonthlyIncomeView extends VerticalLayout {
     }
 
     private void reloadGrid() {
-        List<Income> updated = dao.getAllIncome();
+        List<Income> updated = expenseService.getAllIncome();
         dataProvider.getItems().clear();
         dataProvider.getItems().addAll(updated);
         dataProvider.refreshAll();
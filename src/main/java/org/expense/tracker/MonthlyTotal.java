@@ -0,0 +1,28 @@
+package org.expense.tracker;
+
+import java.time.LocalDate;
+
+public class MonthlyTotal {
+    private LocalDate month;
+    private long incomeCents;
+    private long expensesCents;
+
+    public MonthlyTotal() {}
+
+    public MonthlyTotal(LocalDate month, long incomeCents, long expensesCents) {
+        this.month = month;
+        this.incomeCents = incomeCents;
+        this.expensesCents = expensesCents;
+    }
+
+    public LocalDate getMonth() { return month; }
+    public void setMonth(LocalDate month) { this.month = month; }
+
+    public long getIncomeCents() { return incomeCents; }
+    public void setIncomeCents(long incomeCents) { this.incomeCents = incomeCents; }
+
+    public long getExpensesCents() { return expensesCents; }
+    public void setExpensesCents(long expensesCents) { this.expensesCents = expensesCents; }
+
+    public long getNetCents() { return incomeCents - expensesCents; }
+}
@@ -0,0 +1,219 @@
+package org.expense.tracker;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps the yearly partitions of the expenses table in shape. It runs once at
+ * startup and then on the maintenance schedule, and:
+ *
+ * - creates the partitions for the next years ahead of time, so new expenses
+ *   never pile up in the default partition,
+ * - gives every year that still ended up in the default partition (back-dated
+ *   or far-future expenses) a partition of its own,
+ * - when a retention is configured, detaches the partitions older than that
+ *   and keeps them as expenses_archive_YYYY tables outside the live ledger.
+ *   Their one-off expenses are taken out of the summary tables as well.
+ *   Recurring expenses still occur in the kept years, so they stay in the
+ *   ledger and move to the default partition, where old years are left alone.
+ *
+ * Everything happens in one transaction under an advisory lock, so several
+ * application instances can run the job at the same time.
+ */
+@Component
+public class PartitionMaintenance {
+
+    private static final Pattern YEAR_PARTITION = Pattern.compile("expenses_(\\d{4})");
+
+    private final RoutingDataSource dataSource;
+    private final StatementCache statementCache;
+    private final AggregateCache aggregateCache;
+    private final List<ExpenseChangeListener> listeners;
+    private final int yearsAhead;
+    private final int retentionYears;
+
+    public PartitionMaintenance(RoutingDataSource dataSource, StatementCache statementCache, AggregateCache aggregateCache,
+                                List<ExpenseChangeListener> listeners,
+                                @Value("${app.partitions.years-ahead:2}") int yearsAhead,
+                                @Value("${app.partitions.retention-years:0}") int retentionYears) {
+        this.dataSource = dataSource;
+        this.statementCache = statementCache;
+        this.aggregateCache = aggregateCache;
+        this.listeners = listeners;
+        this.yearsAhead = yearsAhead;
+        this.retentionYears = retentionYears;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${app.partitions.maintenance-cron:0 30 3 * * *}")
+    public void maintain() {
+        int currentYear = LocalDate.now().getYear();
+        // Years before this are archived, 0 keeps everything
+        int oldestKeptYear = retentionYears > 0 ? currentYear - retentionYears + 1 : Integer.MIN_VALUE;
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                if (!tryLock(connection)) {
+                    connection.rollback();
+                    return;
+                }
+
+                Set<Integer> existing = getPartitionYears(connection);
+                Set<Integer> wanted = getDefaultPartitionYears(connection);
+                wanted.removeIf(year -> year < oldestKeptYear);
+                for (int year = currentYear; year <= currentYear + yearsAhead; year++) {
+                    wanted.add(year);
+                }
+                wanted.removeAll(existing);
+                for (int year : wanted) {
+                    createPartition(connection, year);
+                }
+
+                boolean archived = false;
+                for (int year : existing) {
+                    if (year < oldestKeptYear) {
+                        archivePartition(connection, year);
+                        archived = true;
+                    }
+                }
+                connection.commit();
+                if (archived) {
+                    // Archived years no longer count towards anyone's totals
+                    aggregateCache.invalidateAll();
+                    listeners.forEach(ExpenseChangeListener::invalidateAll);
+                }
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private boolean tryLock(Connection connection) throws SQLException {
+        String sql = "SELECT pg_try_advisory_xact_lock(hashtext('expenses_partition_maintenance'))";
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.next() && rs.getBoolean(1);
+        }
+    }
+
+    private Set<Integer> getPartitionYears(Connection connection) throws SQLException {
+        String sql = """
+                SELECT c.relname
+                FROM pg_inherits i
+                JOIN pg_class c ON c.oid = i.inhrelid
+                WHERE i.inhparent = 'expenses'::regclass
+                """;
+        Set<Integer> years = new TreeSet<>();
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                Matcher matcher = YEAR_PARTITION.matcher(rs.getString("relname"));
+                if (matcher.matches()) {
+                    years.add(Integer.parseInt(matcher.group(1)));
+                }
+            }
+        }
+        return years;
+    }
+
+    private Set<Integer> getDefaultPartitionYears(Connection connection) throws SQLException {
+        String sql = "SELECT DISTINCT extract(year FROM date)::int AS year FROM expenses_default";
+        Set<Integer> years = new TreeSet<>();
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                years.add(rs.getInt("year"));
+            }
+        }
+        return years;
+    }
+
+    /**
+     * Creates the partition for {@code year}. Rows of that year already in the
+     * default partition are moved over first, since a partition cannot be
+     * attached while the default partition still holds rows in its range.
+     * Attaching also builds the parent's indexes and keys on the new table.
+     */
+    private void createPartition(Connection connection, int year) throws SQLException {
+        String table = "expenses_" + year;
+        LocalDate from = LocalDate.of(year, 1, 1);
+        LocalDate to = from.plusYears(1);
+
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("CREATE TABLE " + table + " (LIKE expenses INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+        }
+        String move = """
+                WITH moved AS (
+                    DELETE FROM expenses_default WHERE date >= ? AND date < ? RETURNING *
+                )
+                INSERT INTO %s SELECT * FROM moved
+                """.formatted(table);
+        try (PreparedStatement stmt = connection.prepareStatement(move)) {
+            stmt.setObject(1, from);
+            stmt.setObject(2, to);
+            stmt.executeUpdate();
+        }
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("ALTER TABLE expenses ATTACH PARTITION " + table
+                    + " FOR VALUES FROM ('" + from + "') TO ('" + to + "')");
+        }
+    }
+
+    private void archivePartition(Connection connection, int year) throws SQLException {
+        String totalsSql = """
+                SELECT user_id, date_trunc('month', date)::date AS month, category, recurrence_type,
+                       sum(amount) AS amount, count(*) AS count
+                FROM expenses_%d
+                WHERE user_id IS NOT NULL AND coalesce(lower(recurrence_type), 'none') = 'none'
+                GROUP BY 1, 2, 3, 4
+                """.formatted(year);
+        Map<Integer, ExpenseSummaryChange> changes = new TreeMap<>();
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(totalsSql)) {
+            while (rs.next()) {
+                changes.computeIfAbsent(rs.getInt("user_id"), id -> new ExpenseSummaryChange())
+                        .add(rs.getDate("month").toLocalDate(), rs.getString("category"), rs.getString("recurrence_type"),
+                                -Money.getCents(rs, "amount"), -rs.getLong("count"));
+            }
+        }
+        for (Map.Entry<Integer, ExpenseSummaryChange> entry : changes.entrySet()) {
+            entry.getValue().apply(connection, statementCache, entry.getKey());
+        }
+
+        // Once detached, the year is no longer covered by a partition and the default one takes its recurring expenses
+        String keepRecurring = """
+                WITH kept AS (
+                    DELETE FROM expenses_%d WHERE coalesce(lower(recurrence_type), 'none') <> 'none' RETURNING *
+                )
+                INSERT INTO expenses SELECT * FROM kept
+                """.formatted(year);
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("ALTER TABLE expenses DETACH PARTITION expenses_" + year);
+            stmt.executeUpdate(keepRecurring);
+            stmt.execute("ALTER TABLE expenses_" + year + " RENAME TO expenses_archive_" + year);
+        }
+    }
+}
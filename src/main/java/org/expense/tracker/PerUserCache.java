@@ -0,0 +1,135 @@
+package org.expense.tracker;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiPredicate;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Per-user values that are built once from the user's data and then patched
+ * with every committed write instead of being thrown away, as behind
+ * {@link ExpenseRollups} and {@link TopCategories}. The least recently used
+ * users beyond max-users are dropped, and the least recently used values of
+ * a user beyond max-values.
+ *
+ * Every patch bumps the user's version. As in {@link AggregateCache}, a
+ * value that was being built while the user was patched, invalidated or
+ * evicted is returned to its caller but not kept, so it cannot put back data
+ * from before the write. Values are shared between readers and patches, so
+ * they have to synchronize their own methods.
+ */
+public class PerUserCache<K, V> {
+
+    private final int maxValues;
+    private final Map<Integer, UserValues> users;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder builds = new LongAdder();
+    private final LongAdder patches = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public PerUserCache(int maxUsers, int maxValues) {
+        this.maxValues = maxValues;
+        this.users = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, UserValues> eldest) {
+                return size() > maxUsers;
+            }
+        };
+    }
+
+    /**
+     * Returns the user's value for the key if it is cached and still
+     * {@code usable}, or builds, keeps and returns a new one. The build runs
+     * outside the lock.
+     */
+    public V get(int userId, K key, Predicate<V> usable, Supplier<V> build) {
+        UserValues entries;
+        long version;
+        synchronized (this) {
+            entries = users.computeIfAbsent(userId, id -> new UserValues());
+            V cached = entries.values.get(key);
+            if (cached != null && usable.test(cached)) {
+                hits.increment();
+                return cached;
+            }
+            version = entries.version;
+        }
+
+        builds.increment();
+        V value = build.get();
+
+        synchronized (this) {
+            // Skip if the user was written to or evicted while building
+            if (users.get(userId) == entries && entries.version == version) {
+                entries.values.put(key, value);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Patches a committed write into each of the user's values. A value for
+     * which {@code patcher} returns false could not take the write and is
+     * dropped, to be rebuilt on the next read.
+     */
+    public synchronized void patch(int userId, BiPredicate<K, V> patcher) {
+        UserValues entries = users.get(userId);
+        if (entries == null) {
+            return;
+        }
+        entries.version++;
+        Iterator<Map.Entry<K, V>> values = entries.values.entrySet().iterator();
+        while (values.hasNext()) {
+            Map.Entry<K, V> value = values.next();
+            if (!patcher.test(value.getKey(), value.getValue())) {
+                values.remove();
+                invalidations.increment();
+            }
+        }
+        patches.increment();
+    }
+
+    public synchronized void invalidate(int userId) {
+        if (users.remove(userId) != null) {
+            invalidations.increment();
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        users.clear();
+        invalidations.increment();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getBuilds() {
+        return builds.sum();
+    }
+
+    public long getPatches() {
+        return patches.sum();
+    }
+
+    public long getInvalidations() {
+        return invalidations.sum();
+    }
+
+    public synchronized int getCachedUsers() {
+        return users.size();
+    }
+
+    private class UserValues {
+        private long version;
+        private final Map<K, V> values = new LinkedHashMap<>(4, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > maxValues;
+            }
+        };
+    }
+}
@@ -0,0 +1,110 @@
+package org.expense.tracker;
+
+import java.time.LocalDate;
+import java.util.Locale;
+
+/**
+ * How an expense repeats, with the month arithmetic every view and query
+ * shares. An expense occurs in the month of its date and, when recurring,
+ * every month or every twelve months after that. All answers are computed
+ * from month numbers in constant time, however far apart the months are.
+ *
+ * Dates are reduced to their month; only the day-accurate balance of
+ * {@link ExpenseDAO#getBalanceAsOf(int, LocalDate)} looks at the day.
+ */
+public enum Recurrence {
+
+    NONE, MONTHLY, YEARLY;
+
+    /**
+     * Reads the stored recurrence_type. Missing and "None" mean a one-off
+     * expense, "Monthly" repeats every month and anything else (the form uses
+     * "Annually") repeats every year. Case does not matter. These are the same
+     * rules the SQL aggregates and the summary tables use.
+     */
+    public static Recurrence of(String recurrenceType) {
+        if (recurrenceType == null) {
+            return NONE;
+        }
+        return switch (recurrenceType.toLowerCase(Locale.ROOT)) {
+            case "none" -> NONE;
+            case "monthly" -> MONTHLY;
+            default -> YEARLY;
+        };
+    }
+
+    /**
+     * Whether an expense starting at {@code start} occurs in {@code month}.
+     */
+    public boolean appliesTo(LocalDate start, LocalDate month) {
+        return appliesTo(monthIndex(start), monthIndex(month));
+    }
+
+    /**
+     * Same as {@link #appliesTo(LocalDate, LocalDate)} on month indexes, see {@link #monthIndex(LocalDate)}.
+     */
+    boolean appliesTo(int startIndex, int monthIndex) {
+        int offset = monthIndex - startIndex;
+        return switch (this) {
+            case NONE -> offset == 0;
+            case MONTHLY -> offset >= 0;
+            case YEARLY -> offset >= 0 && offset % 12 == 0;
+        };
+    }
+
+    /**
+     * Number of occurrences from month {@code from} to month {@code to}, both inclusive.
+     */
+    public long occurrences(LocalDate start, LocalDate from, LocalDate to) {
+        return occurrences(monthIndex(start), monthIndex(from), monthIndex(to));
+    }
+
+    /**
+     * Same as {@link #occurrences(LocalDate, LocalDate, LocalDate)} on month indexes.
+     */
+    int occurrences(int startIndex, int fromIndex, int toIndex) {
+        int first = firstOccurrence(startIndex, fromIndex);
+        if (first > toIndex) {
+            return 0;
+        }
+        return switch (this) {
+            case NONE -> 1;
+            case MONTHLY -> toIndex - first + 1;
+            case YEARLY -> (toIndex - first) / 12 + 1;
+        };
+    }
+
+    /**
+     * Month index of the first occurrence in or after month {@code fromIndex},
+     * or {@link Integer#MAX_VALUE} when there is none. Later occurrences
+     * follow every month or every twelve months.
+     */
+    int firstOccurrence(int startIndex, int fromIndex) {
+        if (startIndex >= fromIndex) {
+            return startIndex;
+        }
+        return switch (this) {
+            case NONE -> Integer.MAX_VALUE;
+            case MONTHLY -> fromIndex;
+            case YEARLY -> startIndex + ceilDiv(fromIndex - startIndex, 12) * 12;
+        };
+    }
+
+    /**
+     * Total of an expense of {@code amountCents} over the months {@code from} to {@code to}, both inclusive.
+     */
+    public long sum(long amountCents, LocalDate start, LocalDate from, LocalDate to) {
+        return amountCents * occurrences(start, from, to);
+    }
+
+    /**
+     * Months since year 0, so consecutive months have consecutive indexes.
+     */
+    static int monthIndex(LocalDate date) {
+        return date.getYear() * 12 + date.getMonthValue() - 1;
+    }
+
+    private static int ceilDiv(int dividend, int divisor) {
+        return Math.floorDiv(dividend + divisor - 1, divisor);
+    }
+}
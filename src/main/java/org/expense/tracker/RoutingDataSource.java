@@ -0,0 +1,115 @@
+package org.expense.tracker;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Hands out primary connections for writes and replica connections for reads.
+ * {@link #getConnection()} always goes to the primary, so anything that does
+ * not opt in (Flyway, writes) is unaffected.
+ *
+ * Replicas lag behind the primary, so a user who wrote within the
+ * read-your-writes window keeps reading from the primary until it has passed.
+ * Replicas are picked round-robin. A replica that cannot hand out a
+ * connection is skipped for 30 seconds, and reads fall back to the primary
+ * when no replica is available.
+ */
+public class RoutingDataSource extends DelegatingDataSource implements AutoCloseable {
+
+    private static final long REPLICA_RETRY_NANOS = Duration.ofSeconds(30).toNanos();
+
+    private final List<DataSource> replicas;
+    private final AtomicLongArray retryAt;
+    private final long readYourWritesNanos;
+    private final Map<Integer, Long> lastWriteByUser = new ConcurrentHashMap<>();
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    public RoutingDataSource(DataSource primary, List<DataSource> replicas, Duration readYourWritesWindow) {
+        super(primary);
+        this.replicas = List.copyOf(replicas);
+        this.retryAt = new AtomicLongArray(replicas.size());
+        this.readYourWritesNanos = readYourWritesWindow.toNanos();
+    }
+
+    /**
+     * Connection for a read-only query that is not tied to a user's own writes.
+     */
+    public Connection getReadConnection() throws SQLException {
+        int start = nextReplica.getAndIncrement();
+        for (int i = 0; i < replicas.size(); i++) {
+            int index = Math.floorMod(start + i, replicas.size());
+            long retry = retryAt.get(index);
+            if (retry != 0 && System.nanoTime() - retry < 0) {
+                continue;
+            }
+            try {
+                return replicas.get(index).getConnection();
+            } catch (SQLException e) {
+                // Skip this replica for a while instead of waiting for its pool timeout on every read
+                retryAt.set(index, System.nanoTime() + REPLICA_RETRY_NANOS);
+                e.printStackTrace();
+            }
+        }
+        return getConnection();
+    }
+
+    /**
+     * Connection for a read-only query on behalf of {@code userId}.
+     */
+    public Connection getReadConnection(int userId) throws SQLException {
+        if (wroteRecently(userId)) {
+            return getConnection();
+        }
+        return getReadConnection();
+    }
+
+    /**
+     * Pins the user's reads to the primary for the read-your-writes window.
+     */
+    public void recordWrite(int userId) {
+        if (!replicas.isEmpty()) {
+            lastWriteByUser.put(userId, System.nanoTime());
+        }
+    }
+
+    public boolean hasReplicas() {
+        return !replicas.isEmpty();
+    }
+
+    private boolean wroteRecently(int userId) {
+        Long lastWrite = lastWriteByUser.get(userId);
+        if (lastWrite == null) {
+            return false;
+        }
+        if (System.nanoTime() - lastWrite < readYourWritesNanos) {
+            return true;
+        }
+        // Window has passed, drop the entry so the map only holds recent writers
+        lastWriteByUser.remove(userId, lastWrite);
+        return false;
+    }
+
+    @Override
+    public void close() {
+        // The primary is its own bean and is closed by Spring, the replica pools belong to this class
+        for (DataSource replica : replicas) {
+            if (replica instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    // Keep closing the other pools
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+}
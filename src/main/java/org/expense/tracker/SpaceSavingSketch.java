@@ -0,0 +1,151 @@
+package org.expense.tracker;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Weighted Space-Saving summary of the heaviest items of a stream, here
+ * categories weighted by cents, in at most {@code capacity} counters.
+ *
+ * While there are no more distinct items than counters every count is exact.
+ * Beyond that, an unmonitored item takes over the smallest counter and
+ * inherits its count as error, so estimates are upper bounds and never more
+ * than the error above the true total. Any item heavier than the smallest
+ * counter is monitored, so the true top item is always among the counters,
+ * but the item with the largest estimate is only certainly the true top when
+ * its count minus its error is at least the runner-up's count.
+ *
+ * These bounds only hold for streams of additions. Removals are applied
+ * exactly while every count is exact, and refused once an item was evicted,
+ * since the evicted weight may have belonged to the item being removed. A
+ * refused removal leaves the sketch stale and the caller has to rebuild it.
+ * The current top item is tracked on every update, so reading it is constant
+ * time; only removing weight from the top item rescans the counters.
+ * Methods are synchronized since cached sketches are read and patched from
+ * different threads.
+ */
+public final class SpaceSavingSketch {
+
+    private final int capacity;
+    private final Map<String, Counter> counters = new HashMap<>();
+    private Counter top;
+    private boolean evicted;
+
+    /**
+     * A sketch with {@code capacity} counters, or {@link Integer#MAX_VALUE} for exact counts.
+     */
+    public SpaceSavingSketch(int capacity) {
+        this.capacity = Math.max(1, capacity);
+    }
+
+    /**
+     * Adds {@code weight} to the item, or removes it when negative. False
+     * when a removal was refused, see {@link #remove}.
+     */
+    public synchronized boolean add(String item, long weight) {
+        if (weight < 0) {
+            return remove(item, -weight);
+        }
+        Counter counter = counters.get(item);
+        if (counter == null) {
+            if (counters.size() < capacity) {
+                counter = new Counter(item, 0, 0);
+            } else {
+                // The new item replaces the smallest one, whose count bounds how much it may have had
+                Counter smallest = counters.values().stream().min(Comparator.comparingLong(c -> c.count)).orElseThrow();
+                counters.remove(smallest.item);
+                counter = new Counter(item, smallest.count, smallest.count);
+                evicted = true;
+                if (top == smallest) {
+                    top = null;
+                }
+            }
+            counters.put(item, counter);
+        }
+        counter.count += weight;
+        if (top == null || counter.count > top.count) {
+            top = counter;
+        }
+        return true;
+    }
+
+    /**
+     * Takes {@code weight} off the item's total. Returns false without
+     * changing anything when that cannot be done exactly: after an eviction,
+     * or when the item would need a counter and none is free.
+     */
+    public synchronized boolean remove(String item, long weight) {
+        if (evicted) {
+            return false;
+        }
+        Counter counter = counters.get(item);
+        if (counter == null) {
+            if (counters.size() >= capacity) {
+                return false;
+            }
+            counter = new Counter(item, 0, 0);
+            counters.put(item, counter);
+        }
+        counter.count -= weight;
+        // Counts are exact here, so only a total of zero can be forgotten
+        if (counter.count == 0) {
+            counters.remove(item);
+        }
+        if (counter == top || top == null) {
+            top = counters.values().stream().max(Comparator.comparingLong(c -> c.count)).orElse(null);
+        }
+        return true;
+    }
+
+    /**
+     * The heaviest item, or null when there is none.
+     */
+    public synchronized String getTop() {
+        return top != null ? top.item : null;
+    }
+
+    /**
+     * The {@code n} heaviest items with their estimated totals, heaviest first.
+     */
+    public synchronized List<CategoryTotal> getTop(int n) {
+        List<CategoryTotal> totals = new ArrayList<>();
+        counters.values().stream()
+                .sorted(Comparator.comparingLong((Counter c) -> c.count).reversed())
+                .limit(n)
+                .forEach(c -> totals.add(new CategoryTotal(c.item, c.count)));
+        return totals;
+    }
+
+    /**
+     * Largest amount by which an estimate may exceed the true total.
+     */
+    public synchronized long getMaxError() {
+        return counters.values().stream().mapToLong(c -> c.error).max().orElse(0);
+    }
+
+    /**
+     * True while no item was ever evicted, so every count is exact.
+     */
+    public synchronized boolean isExact() {
+        return !evicted;
+    }
+
+    public synchronized int size() {
+        return counters.size();
+    }
+
+    private static class Counter {
+        private final String item;
+        private long count;
+        private final long error;
+
+        private Counter(String item, long count, long error) {
+            this.item = item;
+            this.count = count;
+            this.error = error;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package org.expense.tracker;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Prepares statements for the DAOs and counts how often each physical
+ * connection is handed SQL text it has recently seen.
+ *
+ * The PostgreSQL driver keeps a bounded LRU of prepared queries per physical
+ * connection, keyed by SQL text (preparedStatementCacheQueries), and reuses
+ * the server-side statement after the JDBC PreparedStatement is closed. The
+ * counters here track statement-text reuse in an LRU of the same capacity,
+ * which is the upper bound of what the driver can reuse. They are not read
+ * from the driver: they do not see prepareThreshold, the driver's own
+ * evictions (preparedStatementCacheSizeMiB) or a DISCARD on the connection.
+ */
+@Component
+@ManagedResource(objectName = "org.expense.tracker:type=StatementCache")
+public class StatementCache {
+
+    private final int capacity;
+    private final Map<Connection, Map<String, Boolean>> statementsByConnection =
+            Collections.synchronizedMap(new WeakHashMap<>());
+    private final LongAdder textReuses = new LongAdder();
+    private final LongAdder newTexts = new LongAdder();
+
+    public StatementCache(@Value("${app.jdbc.statement-cache-size:256}") int capacity) {
+        this.capacity = capacity;
+    }
+
+    public PreparedStatement prepare(Connection connection, String sql) throws SQLException {
+        record(connection, sql);
+        return connection.prepareStatement(sql);
+    }
+
+    private void record(Connection connection, String sql) throws SQLException {
+        // Key on the physical connection, not the pool proxy handed out for this borrow
+        Connection physical = connection.unwrap(Connection.class);
+        Map<String, Boolean> statements = statementsByConnection.computeIfAbsent(physical, c -> newLru());
+        synchronized (statements) {
+            if (statements.put(sql, Boolean.TRUE) != null) {
+                textReuses.increment();
+            } else {
+                newTexts.increment();
+            }
+        }
+    }
+
+    private Map<String, Boolean> newLru() {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Statements whose SQL text the connection was recently handed already.
+     */
+    @ManagedAttribute
+    public long getTextReuses() {
+        return textReuses.sum();
+    }
+
+    /**
+     * Statements whose SQL text was new to the connection, or had dropped out of its LRU.
+     */
+    @ManagedAttribute
+    public long getNewTexts() {
+        return newTexts.sum();
+    }
+
+    @ManagedAttribute
+    public double getTextReuseRate() {
+        long total = getTextReuses() + getNewTexts();
+        return total == 0 ? 0.0 : (double) getTextReuses() / total;
+    }
+
+    @ManagedAttribute
+    public int getCachedConnections() {
+        return statementsByConnection.size();
+    }
+}
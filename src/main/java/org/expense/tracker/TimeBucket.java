@@ -0,0 +1,31 @@
+package org.expense.tracker;
+
+import java.time.LocalDate;
+
+/**
+ * Income and expenses of one bucket of a {@link TimeRollup}, starting on {@code start}.
+ */
+public class TimeBucket {
+    private LocalDate start;
+    private long incomeCents;
+    private long expensesCents;
+
+    public TimeBucket() {}
+
+    public TimeBucket(LocalDate start, long incomeCents, long expensesCents) {
+        this.start = start;
+        this.incomeCents = incomeCents;
+        this.expensesCents = expensesCents;
+    }
+
+    public LocalDate getStart() { return start; }
+    public void setStart(LocalDate start) { this.start = start; }
+
+    public long getIncomeCents() { return incomeCents; }
+    public void setIncomeCents(long incomeCents) { this.incomeCents = incomeCents; }
+
+    public long getExpensesCents() { return expensesCents; }
+    public void setExpensesCents(long expensesCents) { this.expensesCents = expensesCents; }
+
+    public long getNetCents() { return incomeCents - expensesCents; }
+}
@@ -0,0 +1,240 @@
+package org.expense.tracker;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A user's income and expenses summed into day, week, month, quarter and
+ * year buckets, for charts that zoom and pan over time. Every amount is added
+ * to one bucket of each resolution, so a range is answered from the
+ * resolution that fits it by reading only the buckets inside the range.
+ *
+ * Recurring expenses are expanded into their occurrences, on the day of month
+ * they started (or the month's last day), up to {@link #getLastDay()}. The
+ * rollup covers whole years from the first year with activity to a number of
+ * years past the last one, or to a later day asked for, and is patched in
+ * place after writes by
+ * {@link ExpenseRollups}. Methods are synchronized so patches and reads of the
+ * same rollup do not interleave.
+ */
+public final class TimeRollup {
+
+    public enum Resolution {
+        DAY, WEEK, MONTH, QUARTER, YEAR;
+
+        private static final Resolution[] VALUES = values();
+
+        /**
+         * First day of the bucket that contains {@code date}. Weeks start on Monday.
+         */
+        public LocalDate bucketStart(LocalDate date) {
+            return switch (this) {
+                case DAY -> date;
+                case WEEK -> date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+                case MONTH -> date.withDayOfMonth(1);
+                case QUARTER -> date.withDayOfMonth(1).withMonth((date.getMonthValue() - 1) / 3 * 3 + 1);
+                case YEAR -> date.withDayOfYear(1);
+            };
+        }
+
+        /**
+         * First day of the bucket after the one starting on {@code bucketStart}.
+         */
+        public LocalDate next(LocalDate bucketStart) {
+            return plus(bucketStart, 1);
+        }
+
+        public LocalDate plus(LocalDate bucketStart, long buckets) {
+            return switch (this) {
+                case DAY -> bucketStart.plusDays(buckets);
+                case WEEK -> bucketStart.plusWeeks(buckets);
+                case MONTH -> bucketStart.plusMonths(buckets);
+                case QUARTER -> bucketStart.plusMonths(3 * buckets);
+                case YEAR -> bucketStart.plusYears(buckets);
+            };
+        }
+
+        /**
+         * Number of buckets from the one containing {@code from} to the one containing {@code to}, both included.
+         */
+        public long bucketCount(LocalDate from, LocalDate to) {
+            LocalDate first = bucketStart(from);
+            LocalDate last = bucketStart(to);
+            return 1 + switch (this) {
+                case DAY -> ChronoUnit.DAYS.between(first, last);
+                case WEEK -> ChronoUnit.WEEKS.between(first, last);
+                case MONTH -> ChronoUnit.MONTHS.between(first, last);
+                case QUARTER -> ChronoUnit.MONTHS.between(first, last) / 3;
+                case YEAR -> ChronoUnit.YEARS.between(first, last);
+            };
+        }
+
+        /**
+         * The finest resolution that shows the range in at most {@code maxBuckets} buckets.
+         */
+        public static Resolution finestFor(LocalDate from, LocalDate to, int maxBuckets) {
+            for (Resolution resolution : VALUES) {
+                if (resolution.bucketCount(from, to) <= maxBuckets) {
+                    return resolution;
+                }
+            }
+            return YEAR;
+        }
+    }
+
+    private static final Resolution[] RESOLUTIONS = Resolution.values();
+
+    private final LocalDate firstDay;
+    private final LocalDate lastDay;
+    private final long firstEpochDay;
+    private final long firstWeekEpochDay;
+    private final int firstMonthIndex;
+    // Indexed by resolution ordinal, then bucket
+    private final long[][] expenseCents = new long[RESOLUTIONS.length][];
+    private final long[][] incomeCents = new long[RESOLUTIONS.length][];
+
+    private TimeRollup(LocalDate firstDay, LocalDate lastDay) {
+        this.firstDay = firstDay;
+        this.lastDay = lastDay;
+        this.firstEpochDay = firstDay.toEpochDay();
+        this.firstWeekEpochDay = Resolution.WEEK.bucketStart(firstDay).toEpochDay();
+        this.firstMonthIndex = Recurrence.monthIndex(firstDay);
+        for (Resolution resolution : RESOLUTIONS) {
+            int buckets = (int) resolution.bucketCount(firstDay, lastDay);
+            expenseCents[resolution.ordinal()] = new long[buckets];
+            incomeCents[resolution.ordinal()] = new long[buckets];
+        }
+    }
+
+    /**
+     * Rolls up the ledger and income, covering {@code horizonYears} whole years
+     * past the later of today and the last activity.
+     */
+    public static TimeRollup build(Ledger ledger, List<Income> income, LocalDate today, int horizonYears) {
+        return build(ledger, income, today, horizonYears, today);
+    }
+
+    /**
+     * Like {@link #build(Ledger, List, LocalDate, int)}, but covering at least
+     * the year of {@code until}, for ranges that reach past the horizon.
+     */
+    public static TimeRollup build(Ledger ledger, List<Income> income, LocalDate today, int horizonYears, LocalDate until) {
+        LocalDate first = today;
+        LocalDate last = today;
+        for (int row = 0; row < ledger.size(); row++) {
+            LocalDate date = ledger.getDate(row);
+            first = date.isBefore(first) ? date : first;
+            last = date.isAfter(last) ? date : last;
+        }
+        for (Income entry : income) {
+            first = entry.getMonth().isBefore(first) ? entry.getMonth() : first;
+            last = entry.getMonth().isAfter(last) ? entry.getMonth() : last;
+        }
+
+        last = last.plusYears(horizonYears);
+        last = until.isAfter(last) ? until : last;
+        TimeRollup rollup = new TimeRollup(first.withDayOfYear(1), last.withMonth(12).withDayOfMonth(31));
+        for (int row = 0; row < ledger.size(); row++) {
+            rollup.addExpense(ledger.getDate(row), ledger.getRecurrence(row), ledger.getCents(row));
+        }
+        for (Income entry : income) {
+            rollup.addIncome(entry.getMonth(), entry.getAmountCents());
+        }
+        return rollup;
+    }
+
+    public LocalDate getFirstDay() { return firstDay; }
+
+    /**
+     * Last day with recurring expenses expanded. Later buckets read as empty,
+     * so ranges past it need a rollup built to cover them.
+     */
+    public LocalDate getLastDay() { return lastDay; }
+
+    /**
+     * Adds an expense, or takes it back out with negative cents. Returns false,
+     * without changing anything, if the date is before the first covered day
+     * and the rollup has to be rebuilt instead.
+     */
+    public synchronized boolean addExpense(LocalDate date, Recurrence recurrence, long cents) {
+        if (date.isBefore(firstDay)) {
+            return false;
+        }
+        switch (recurrence) {
+            case NONE -> {
+                if (!date.isAfter(lastDay)) {
+                    add(expenseCents, date, cents);
+                }
+            }
+            case MONTHLY -> {
+                // Counting from the start keeps its day of month, or the last day of shorter months
+                LocalDate occurrence = date;
+                for (int months = 1; !occurrence.isAfter(lastDay); months++) {
+                    add(expenseCents, occurrence, cents);
+                    occurrence = date.plusMonths(months);
+                }
+            }
+            case YEARLY -> {
+                LocalDate occurrence = date;
+                for (int years = 1; !occurrence.isAfter(lastDay); years++) {
+                    add(expenseCents, occurrence, cents);
+                    occurrence = date.plusYears(years);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Adds income for the month of {@code month}, see {@link #addExpense}.
+     */
+    public synchronized boolean addIncome(LocalDate month, long cents) {
+        if (month.isBefore(firstDay)) {
+            return false;
+        }
+        if (!month.isAfter(lastDay)) {
+            add(incomeCents, month.withDayOfMonth(1), cents);
+        }
+        return true;
+    }
+
+    /**
+     * One bucket of the resolution for every bucket that overlaps {@code from}
+     * to {@code to}, oldest first. Reads only those buckets.
+     */
+    public synchronized List<TimeBucket> getBuckets(Resolution resolution, LocalDate from, LocalDate to) {
+        List<TimeBucket> buckets = new ArrayList<>();
+        long[] expenses = expenseCents[resolution.ordinal()];
+        long[] income = incomeCents[resolution.ordinal()];
+        LocalDate start = resolution.bucketStart(from);
+        // Buckets outside the covered years have negative or too large indexes and read as empty
+        long index = index(resolution, start);
+        for (; !start.isAfter(to); start = resolution.next(start), index++) {
+            boolean covered = index >= 0 && index < expenses.length;
+            buckets.add(new TimeBucket(start, covered ? income[(int) index] : 0, covered ? expenses[(int) index] : 0));
+        }
+        return buckets;
+    }
+
+    private void add(long[][] target, LocalDate date, long cents) {
+        for (Resolution resolution : RESOLUTIONS) {
+            target[resolution.ordinal()][(int) index(resolution, date)] += cents;
+        }
+    }
+
+    private long index(Resolution resolution, LocalDate date) {
+        long epochDay = date.toEpochDay();
+        int month = Recurrence.monthIndex(date);
+        return switch (resolution) {
+            case DAY -> epochDay - firstEpochDay;
+            case WEEK -> Math.floorDiv(epochDay - firstWeekEpochDay, 7);
+            case MONTH -> month - firstMonthIndex;
+            case QUARTER -> month / 3 - firstMonthIndex / 3;
+            case YEAR -> month / 12 - firstMonthIndex / 12;
+        };
+    }
+}
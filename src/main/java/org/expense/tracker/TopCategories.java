@@ -0,0 +1,146 @@
+package org.expense.tracker;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Keeps each user's heaviest categories in {@link SpaceSavingSketch}es, one
+ * for all time and one for each of the last few months asked for, so the
+ * summary cards read the top category in constant time.
+ *
+ * A sketch is built with one pass over the user's ledger and ExpenseDAO
+ * patches every committed expense write into the user's sketches. Ledgers
+ * of at most exact-threshold rows get sketches with a counter for every
+ * category, which are exact and are never rebuilt while the user stays
+ * cached. Larger ones are bounded to capacity counters. A bounded sketch
+ * cannot take weight back once it has evicted a category, so an update or
+ * delete drops it and the next read rebuilds it from the ledger.
+ *
+ * The sketches live in a {@link PerUserCache}, like the rollups.
+ */
+@Component
+@ManagedResource(objectName = "org.expense.tracker:type=TopCategories")
+public class TopCategories implements ExpenseChangeListener {
+
+    // Window key of the all-time sketch, month windows use Recurrence.monthIndex
+    private static final int ALL_TIME = Integer.MIN_VALUE;
+    private static final int MONTHS_PER_USER = 3;
+
+    private final int capacity;
+    private final int exactThreshold;
+    // The all-time sketch and the most recently read months
+    private final PerUserCache<Integer, SpaceSavingSketch> cache;
+
+    public TopCategories(@Value("${app.top-categories.capacity:64}") int capacity,
+                         @Value("${app.top-categories.exact-threshold:10000}") int exactThreshold,
+                         @Value("${app.top-categories.max-users:1000}") int maxUsers) {
+        this.capacity = capacity;
+        this.exactThreshold = exactThreshold;
+        this.cache = new PerUserCache<>(maxUsers, MONTHS_PER_USER + 1);
+    }
+
+    /**
+     * The user's largest category in the month of {@code month}, recurring
+     * expenses included, or of all time when {@code month} is null. Null when
+     * nothing was spent.
+     */
+    public String getTopCategory(int userId, LocalDate month, Supplier<Ledger> ledger) {
+        return sketch(userId, month, ledger).getTop();
+    }
+
+    /**
+     * The user's {@code n} largest categories, see {@link #getTopCategory}.
+     * Totals are estimates once the ledger is past the exact threshold.
+     */
+    public List<CategoryTotal> getTopCategories(int userId, LocalDate month, int n, Supplier<Ledger> ledger) {
+        return sketch(userId, month, ledger).getTop(n);
+    }
+
+    private SpaceSavingSketch sketch(int userId, LocalDate month, Supplier<Ledger> ledger) {
+        int window = month != null ? Recurrence.monthIndex(month) : ALL_TIME;
+        return cache.get(userId, window, sketch -> true, () -> build(ledger.get(), window));
+    }
+
+    private SpaceSavingSketch build(Ledger ledger, int window) {
+        SpaceSavingSketch sketch = new SpaceSavingSketch(ledger.size() <= exactThreshold ? Integer.MAX_VALUE : capacity);
+        if (!fill(sketch, ledger, window)) {
+            // A negative amount came after an eviction, which only an exact sketch can take
+            sketch = new SpaceSavingSketch(Integer.MAX_VALUE);
+            fill(sketch, ledger, window);
+        }
+        return sketch;
+    }
+
+    private static boolean fill(SpaceSavingSketch sketch, Ledger ledger, int window) {
+        for (int row = 0; row < ledger.size(); row++) {
+            String category = ledger.getCategory(row);
+            if (category != null && (window == ALL_TIME
+                    || ledger.getRecurrence(row).appliesTo(ledger.getMonthIndex(row), window))
+                    && !sketch.add(category, ledger.getCents(row))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Adds a committed expense change to the user's sketches, dropping those
+     * that cannot take it.
+     */
+    @Override
+    public void expensesChanged(int userId, ExpenseSummaryChange change) {
+        cache.patch(userId, (window, sketch) -> {
+            boolean[] taken = {true};
+            change.forEachDay((date, category, recurrence, cents) -> {
+                if (taken[0] && category != null
+                        && (window == ALL_TIME || recurrence.appliesTo(Recurrence.monthIndex(date), window))) {
+                    taken[0] = sketch.add(category, cents);
+                }
+            });
+            return taken[0];
+        });
+    }
+
+    @Override
+    public void incomeChanged(int userId) {
+        // Categories only depend on expenses
+    }
+
+    @Override
+    @ManagedOperation
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    @ManagedAttribute
+    public long getHits() {
+        return cache.getHits();
+    }
+
+    @ManagedAttribute
+    public long getBuilds() {
+        return cache.getBuilds();
+    }
+
+    @ManagedAttribute
+    public long getPatches() {
+        return cache.getPatches();
+    }
+
+    @ManagedAttribute
+    public long getInvalidations() {
+        return cache.getInvalidations();
+    }
+
+    @ManagedAttribute
+    public int getCachedUsers() {
+        return cache.getCachedUsers();
+    }
+}
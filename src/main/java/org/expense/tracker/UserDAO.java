@@ -2,6 +2,7 @@ package org.expense.tracker;
 
 import org.springframework.security.crypto.bcrypt.BCrypt;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Repository;
 
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
@@ -9,12 +10,14 @@ import java.sql.*;
 import java.time.LocalDateTime;
 import java.util.Base64;
 
+@Repository
 public class UserDAO {
-    private final Connection connection;
+    private final RoutingDataSource dataSource;
+    private final StatementCache statementCache;
 
-    public UserDAO(Connection connection) {
-        this.connection = connection;
-        createUserTableIfNotExists();
+    public UserDAO(RoutingDataSource dataSource, StatementCache statementCache) {
+        this.dataSource = dataSource;
+        this.statementCache = statementCache;
     }
 
     private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
@@ -27,24 +30,6 @@ public class UserDAO {
         return passwordEncoder.matches(rawPassword, hashedPassword);
     }
 
-    private void createUserTableIfNotExists() {
-        String createTableSQL = """
-    CREATE TABLE IF NOT EXISTS users (
-        id SERIAL PRIMARY KEY,
-        username VARCHAR(50) UNIQUE NOT NULL,
-        password_hash VARCHAR(255) NOT NULL,
-        email VARCHAR(100) UNIQUE NOT NULL,
-        created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
-    )
-    """;
-
-        try (Statement stmt = connection.createStatement()) {
-            stmt.execute(createTableSQL);
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-    }
-
     public int createUser(User user) {
         // Check if username or email already exists
         if (userExists(user.getUsername(), user.getEmail())) {
@@ -54,7 +39,8 @@ public class UserDAO {
         String hashedPassword = BCrypt.hashpw(user.getPassword(), BCrypt.gensalt());
         String sql = "INSERT INTO users (username, email, password_hash, created_at) VALUES (?, ?, ?, ?) RETURNING id";
 
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement stmt = statementCache.prepare(connection, sql)) {
             stmt.setString(1, user.getUsername());
             stmt.setString(2, user.getEmail());
             stmt.setString(3, hashedPassword);  // Das gehashte Passwort hier einsetzen
@@ -71,33 +57,49 @@ public class UserDAO {
     }
 
     public User authenticateUser(String username, String password) {
+        try {
+            User user = findByUsername(username, true);
+            if (user == null && dataSource.hasReplicas()) {
+                // An account created moments ago may not have reached the replica yet
+                user = findByUsername(username, false);
+            }
+
+            // Verwende BCrypt zum Verifizieren des Passworts
+            if (user != null && BCrypt.checkpw(password, user.getPassword())) {
+                user.setPassword(null);
+                return user;
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    private User findByUsername(String username, boolean fromReplica) throws SQLException {
         String sql = "SELECT * FROM users WHERE username = ?";
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = fromReplica ? dataSource.getReadConnection() : dataSource.getConnection();
+             PreparedStatement stmt = statementCache.prepare(connection, sql)) {
             stmt.setString(1, username);
 
             ResultSet rs = stmt.executeQuery();
             if (rs.next()) {
-                String storedHash = rs.getString("password_hash");
-
-                // Verwende BCrypt zum Verifizieren des Passworts
-                if (BCrypt.checkpw(password, storedHash)) {
-                    User user = new User();
-                    user.setId(rs.getInt("id"));
-                    user.setUsername(rs.getString("username"));
-                    user.setEmail(rs.getString("email"));
-                    user.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
-                    return user;
-                }
+                User user = new User();
+                user.setId(rs.getInt("id"));
+                user.setUsername(rs.getString("username"));
+                user.setPassword(rs.getString("password_hash"));
+                user.setEmail(rs.getString("email"));
+                user.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
+                return user;
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
         }
         return null;
     }
 
     public boolean userExists(String username, String email) {
+        // Checked on the primary, a stale replica could let a duplicate through
         String sql = "SELECT COUNT(*) FROM users WHERE username = ? OR email = ?";
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement stmt = statementCache.prepare(connection, sql)) {
             stmt.setString(1, username);
             stmt.setString(2, email);
 
@@ -113,7 +115,8 @@ public class UserDAO {
 
     public User getUserById(int id) {
         String sql = "SELECT * FROM users WHERE id = ?";
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = dataSource.getReadConnection();
+             PreparedStatement stmt = statementCache.prepare(connection, sql)) {
             stmt.setInt(1, id);
 
             ResultSet rs = stmt.executeQuery();
@@ -0,0 +1,36 @@
+-- Baseline schema. Existing databases already have some of these tables,
+-- so everything is written to be a no-op when the object is present.
+
+CREATE TABLE IF NOT EXISTS users (
+    id SERIAL PRIMARY KEY,
+    username VARCHAR(50) UNIQUE NOT NULL,
+    password_hash VARCHAR(255) NOT NULL,
+    email VARCHAR(100) UNIQUE NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE IF NOT EXISTS expenses (
+    id SERIAL PRIMARY KEY,
+    amount NUMERIC(12, 2) NOT NULL,
+    category VARCHAR(100) NOT NULL,
+    description TEXT,
+    date DATE NOT NULL,
+    recurring BOOLEAN NOT NULL DEFAULT FALSE,
+    recurrence_type VARCHAR(20)
+);
+
+CREATE TABLE IF NOT EXISTS income (
+    id SERIAL PRIMARY KEY,
+    amount NUMERIC(12, 2) NOT NULL,
+    month DATE NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS bank_balance (
+    id SERIAL PRIMARY KEY,
+    amount NUMERIC(12, 2) NOT NULL,
+    last_updated TIMESTAMP NOT NULL
+);
+
+ALTER TABLE expenses ADD COLUMN IF NOT EXISTS user_id INTEGER REFERENCES users(id);
+ALTER TABLE income ADD COLUMN IF NOT EXISTS user_id INTEGER REFERENCES users(id);
+ALTER TABLE bank_balance ADD COLUMN IF NOT EXISTS user_id INTEGER REFERENCES users(id);
@@ -0,0 +1,17 @@
+-- Income is one row per user and month, and the bank balance one row per user.
+-- The old select-then-write saves could race and leave duplicates behind, so
+-- the newest row is kept before the unique constraints are added.
+
+DELETE FROM income i
+USING income newer
+WHERE newer.user_id = i.user_id
+  AND newer.month = i.month
+  AND newer.id > i.id;
+
+DELETE FROM bank_balance b
+USING bank_balance newer
+WHERE newer.user_id = b.user_id
+  AND (newer.last_updated, newer.id) > (b.last_updated, b.id);
+
+ALTER TABLE income ADD CONSTRAINT income_user_month_key UNIQUE (user_id, month);
+ALTER TABLE bank_balance ADD CONSTRAINT bank_balance_user_key UNIQUE (user_id);
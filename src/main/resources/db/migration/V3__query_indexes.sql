@@ -0,0 +1,24 @@
+-- Indexes for the queries the views run. Every read filters on user_id first.
+-- income (user_id, month) and bank_balance (user_id) are already covered by
+-- the unique constraints from V2.
+
+-- Grid keyset pages by date, exports and the monthly/category aggregates. The
+-- included columns let the aggregates and balance run as index-only scans.
+CREATE INDEX IF NOT EXISTS expenses_user_date_idx
+    ON expenses (user_id, date DESC, id DESC)
+    INCLUDE (amount, category, recurrence_type);
+
+-- Recurring expenses are expanded over every month of a range regardless of
+-- their date, so they get their own small index instead of a full user scan.
+CREATE INDEX IF NOT EXISTS expenses_user_recurring_idx
+    ON expenses (user_id, date)
+    INCLUDE (amount, category, recurrence_type)
+    WHERE coalesce(lower(recurrence_type), 'none') <> 'none';
+
+-- Grid keyset pages sorted by category or amount, and all-time category totals.
+CREATE INDEX IF NOT EXISTS expenses_user_category_idx
+    ON expenses (user_id, category, id)
+    INCLUDE (amount);
+
+CREATE INDEX IF NOT EXISTS expenses_user_amount_idx
+    ON expenses (user_id, amount, id);
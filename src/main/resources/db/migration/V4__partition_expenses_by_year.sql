@@ -0,0 +1,63 @@
+-- Expenses are range partitioned by date, one partition per year, so queries
+-- bounded by date only touch the years they ask for. Rows outside every
+-- yearly partition land in expenses_default until PartitionMaintenance gives
+-- their year a partition of its own.
+
+ALTER TABLE expenses RENAME TO expenses_unpartitioned;
+
+-- Columns are copied as they are, databases that predate V1 have looser
+-- definitions. The primary key of a partitioned table has to include the
+-- partition key.
+CREATE TABLE expenses (
+    LIKE expenses_unpartitioned INCLUDING DEFAULTS,
+    PRIMARY KEY (id, date),
+    FOREIGN KEY (user_id) REFERENCES users(id)
+) PARTITION BY RANGE (date);
+
+ALTER SEQUENCE expenses_id_seq OWNED BY expenses.id;
+
+CREATE TABLE expenses_default PARTITION OF expenses DEFAULT;
+
+-- A partition for every year that has expenses, plus this year and the next
+DO $$
+DECLARE
+    partition_year INTEGER;
+BEGIN
+    FOR partition_year IN
+        SELECT DISTINCT extract(year FROM date)::int FROM expenses_unpartitioned
+        UNION
+        SELECT extract(year FROM current_date)::int + offset_years FROM generate_series(0, 1) AS offset_years
+        ORDER BY 1
+    LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF expenses FOR VALUES FROM (%L) TO (%L)',
+                       'expenses_' || partition_year,
+                       make_date(partition_year, 1, 1),
+                       make_date(partition_year + 1, 1, 1));
+    END LOOP;
+END $$;
+
+INSERT INTO expenses (id, amount, category, description, date, recurring, recurrence_type, user_id)
+SELECT id, amount, category, description, date, recurring, recurrence_type, user_id
+FROM expenses_unpartitioned;
+
+DROP TABLE expenses_unpartitioned;
+
+-- Same indexes as V3, created on the parent so every partition gets them,
+-- including the ones the maintenance job adds later
+CREATE INDEX expenses_user_date_idx
+    ON expenses (user_id, date DESC, id DESC)
+    INCLUDE (amount, category, recurrence_type);
+
+CREATE INDEX expenses_user_recurring_idx
+    ON expenses (user_id, date)
+    INCLUDE (amount, category, recurrence_type)
+    WHERE coalesce(lower(recurrence_type), 'none') <> 'none';
+
+CREATE INDEX expenses_user_category_idx
+    ON expenses (user_id, category, id)
+    INCLUDE (amount);
+
+CREATE INDEX expenses_user_amount_idx
+    ON expenses (user_id, amount, id);
+
+ANALYZE expenses;
@@ -0,0 +1,53 @@
+-- Precomputed expense aggregates, kept up to date by ExpenseDAO in the same
+-- transaction as every expense write, so the dashboards read one row per
+-- month or category instead of the whole ledger.
+
+-- Per user and month, split by how the expenses recur. A recurring expense
+-- is recorded once, in its start month. Its occurrences in later months
+-- follow from running sums: monthly ones repeat in every later month, yearly
+-- ones in every later year in the same calendar month.
+CREATE TABLE expense_month_totals (
+    user_id INTEGER NOT NULL REFERENCES users(id),
+    month DATE NOT NULL,
+    one_off_total NUMERIC(14, 2) NOT NULL DEFAULT 0,
+    one_off_count INTEGER NOT NULL DEFAULT 0,
+    monthly_total NUMERIC(14, 2) NOT NULL DEFAULT 0,
+    monthly_count INTEGER NOT NULL DEFAULT 0,
+    yearly_total NUMERIC(14, 2) NOT NULL DEFAULT 0,
+    yearly_count INTEGER NOT NULL DEFAULT 0,
+    PRIMARY KEY (user_id, month)
+);
+
+-- Per user and category, every expense counted once as recorded
+CREATE TABLE expense_category_totals (
+    user_id INTEGER NOT NULL REFERENCES users(id),
+    category VARCHAR(100) NOT NULL,
+    total NUMERIC(14, 2) NOT NULL DEFAULT 0,
+    expense_count INTEGER NOT NULL DEFAULT 0,
+    PRIMARY KEY (user_id, category)
+);
+
+INSERT INTO expense_month_totals (user_id, month, one_off_total, one_off_count,
+                                  monthly_total, monthly_count, yearly_total, yearly_count)
+SELECT user_id, month,
+       coalesce(sum(amount) FILTER (WHERE kind = 'none'), 0),
+       count(*) FILTER (WHERE kind = 'none'),
+       coalesce(sum(amount) FILTER (WHERE kind = 'monthly'), 0),
+       count(*) FILTER (WHERE kind = 'monthly'),
+       coalesce(sum(amount) FILTER (WHERE kind = 'yearly'), 0),
+       count(*) FILTER (WHERE kind = 'yearly')
+FROM (
+    SELECT user_id, date_trunc('month', date)::date AS month, coalesce(amount, 0) AS amount,
+           CASE WHEN coalesce(lower(recurrence_type), 'none') = 'none' THEN 'none'
+                WHEN lower(recurrence_type) = 'monthly' THEN 'monthly'
+                ELSE 'yearly' END AS kind
+    FROM expenses
+    WHERE user_id IS NOT NULL
+) classified
+GROUP BY user_id, month;
+
+INSERT INTO expense_category_totals (user_id, category, total, expense_count)
+SELECT user_id, category, sum(amount), count(*)
+FROM expenses
+WHERE user_id IS NOT NULL AND category IS NOT NULL
+GROUP BY user_id, category;
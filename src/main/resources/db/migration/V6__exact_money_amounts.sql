@@ -0,0 +1,40 @@
+-- Amounts are exact to the cent and the application reads them as a long
+-- number of cents. Databases created before V1 store them as double
+-- precision; they are rounded to the cent once here, and every amount column
+-- gets the same type as the summary totals.
+
+ALTER TABLE expenses ALTER COLUMN amount TYPE NUMERIC(14, 2) USING round(amount::numeric, 2);
+ALTER TABLE income ALTER COLUMN amount TYPE NUMERIC(14, 2) USING round(amount::numeric, 2);
+ALTER TABLE bank_balance ALTER COLUMN amount TYPE NUMERIC(14, 2) USING round(amount::numeric, 2);
+
+-- The summaries were backfilled from the unrounded amounts, rebuild them
+-- from the rounded ones the same way V5 did
+DELETE FROM expense_month_totals;
+DELETE FROM expense_category_totals;
+
+INSERT INTO expense_month_totals (user_id, month, one_off_total, one_off_count,
+                                  monthly_total, monthly_count, yearly_total, yearly_count)
+SELECT user_id, month,
+       coalesce(sum(amount) FILTER (WHERE kind = 'none'), 0),
+       count(*) FILTER (WHERE kind = 'none'),
+       coalesce(sum(amount) FILTER (WHERE kind = 'monthly'), 0),
+       count(*) FILTER (WHERE kind = 'monthly'),
+       coalesce(sum(amount) FILTER (WHERE kind = 'yearly'), 0),
+       count(*) FILTER (WHERE kind = 'yearly')
+FROM (
+    SELECT user_id, date_trunc('month', date)::date AS month, coalesce(amount, 0) AS amount,
+           CASE WHEN coalesce(lower(recurrence_type), 'none') = 'none' THEN 'none'
+                WHEN lower(recurrence_type) = 'monthly' THEN 'monthly'
+                ELSE 'yearly' END AS kind
+    FROM expenses
+    WHERE user_id IS NOT NULL
+) classified
+GROUP BY user_id, month;
+
+INSERT INTO expense_category_totals (user_id, category, total, expense_count)
+SELECT user_id, category, sum(amount), count(*)
+FROM expenses
+WHERE user_id IS NOT NULL AND category IS NOT NULL
+GROUP BY user_id, category;
+
+ANALYZE expenses;
@@ -0,0 +1,14 @@
+-- Search over expense descriptions and categories. A trigram index answers
+-- substring and prefix matches (ILIKE) as well as misspelt words (word
+-- similarity) from the same index. The indexed expression has to match the
+-- one ExpenseDAO.searchExpenses uses exactly.
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- Created on the parent, so every yearly partition gets it too
+CREATE INDEX IF NOT EXISTS expenses_search_trgm_idx
+    ON expenses USING gin ((coalesce(description, '') || ' ' || coalesce(category, '')) gin_trgm_ops);
+
+-- Statistics on the new expression let the planner tell rare search texts
+-- (read through the index) from common ones (read in date order)
+ANALYZE expenses;
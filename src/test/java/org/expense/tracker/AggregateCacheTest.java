@@ -0,0 +1,55 @@
+package org.expense.tracker;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class AggregateCacheTest {
+
+    @Test
+    void servesHitsUntilInvalidated() {
+        AggregateCache cache = new AggregateCache(10, Duration.ofMinutes(5));
+        AtomicInteger loads = new AtomicInteger();
+
+        Assertions.assertEquals(1, cache.get(1, "balance", loads::incrementAndGet));
+        Assertions.assertEquals(1, cache.get(1, "balance", loads::incrementAndGet));
+        // Other users are cached separately and not affected by the invalidation
+        Assertions.assertEquals(2, cache.get(2, "balance", loads::incrementAndGet));
+
+        cache.invalidate(1);
+        Assertions.assertEquals(3, cache.get(1, "balance", loads::incrementAndGet));
+        Assertions.assertEquals(2, cache.get(2, "balance", loads::incrementAndGet));
+        Assertions.assertEquals(2, cache.getHits());
+        Assertions.assertEquals(3, cache.getMisses());
+    }
+
+    @Test
+    void doesNotCacheLoadsThatRacedAnInvalidation() {
+        AggregateCache cache = new AggregateCache(10, Duration.ofMinutes(5));
+
+        String stale = cache.get(1, "balance", () -> {
+            // A write commits while the old value is being read
+            cache.invalidate(1);
+            return "before write";
+        });
+
+        Assertions.assertEquals("before write", stale);
+        Assertions.assertEquals("after write", cache.get(1, "balance", () -> "after write"));
+    }
+
+    @Test
+    void expiresAndEvicts() {
+        AggregateCache expiring = new AggregateCache(10, Duration.ZERO);
+        expiring.get(1, "balance", () -> "first");
+        Assertions.assertEquals("second", expiring.get(1, "balance", () -> "second"));
+
+        AggregateCache small = new AggregateCache(1, Duration.ofMinutes(5));
+        small.get(1, "balance", () -> "user 1");
+        small.get(2, "balance", () -> "user 2");
+        Assertions.assertEquals(1, small.getCachedUsers());
+        Assertions.assertEquals(1, small.getEvictions());
+        Assertions.assertEquals("reloaded", small.get(1, "balance", () -> "reloaded"));
+    }
+}
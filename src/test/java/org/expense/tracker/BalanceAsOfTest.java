@@ -0,0 +1,65 @@
+package org.expense.tracker;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Checks that the as-of balance counts expenses up to the day, not to the
+ * end of the month. Runs against a {@link MigratedSchema}.
+ */
+public class BalanceAsOfTest {
+
+    @RegisterExtension
+    static final MigratedSchema database = new MigratedSchema("balance_as_of_check");
+
+    @Test
+    void countsOccurrencesUpToTheDay() throws SQLException {
+        ExpenseDAO dao = new ExpenseDAO(new RoutingDataSource(database.getDataSource(), List.of(), Duration.ZERO),
+                new StatementCache(16), List.of(), 500);
+        int userId = createUser();
+        execute("INSERT INTO income (amount, month, user_id) VALUES (1000.00, '2024-03-01', " + userId + ")");
+        dao.applyWrites(List.of(
+                ExpenseWrite.insert(userId, expense(10_00, LocalDate.of(2024, 3, 5), "None")),
+                ExpenseWrite.insert(userId, expense(20_00, LocalDate.of(2024, 3, 20), "None")),
+                // Occurs on the last day of shorter months
+                ExpenseWrite.insert(userId, expense(5_00, LocalDate.of(2024, 1, 31), "Monthly")),
+                ExpenseWrite.insert(userId, expense(7_00, LocalDate.of(2023, 3, 10), "Annually")),
+                ExpenseWrite.insert(userId, expense(3_00, LocalDate.of(2024, 3, 25), "Monthly"))));
+
+        // Income of March counts from its first day
+        Assertions.assertEquals(-17_00, dao.getBalanceAsOf(userId, LocalDate.of(2024, 2, 29)));
+        Assertions.assertEquals(1000_00 - 10_00 - 10_00 - 14_00, dao.getBalanceAsOf(userId, LocalDate.of(2024, 3, 15)));
+        Assertions.assertEquals(1000_00 - 30_00 - 15_00 - 14_00 - 3_00, dao.getBalanceAsOf(userId, LocalDate.of(2024, 3, 31)));
+    }
+
+    private static MainView.Expense expense(long cents, LocalDate date, String recurrenceType) {
+        boolean recurring = !"None".equals(recurrenceType);
+        return new MainView.Expense(cents, "Bills", null, date, recurring, recurring ? recurrenceType : null);
+    }
+
+    private int createUser() throws SQLException {
+        String sql = "INSERT INTO users (username, password_hash, email) VALUES ('balance', 'x', 'balance@example.com') RETURNING id";
+        try (Connection connection = database.getDataSource().getConnection();
+             Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    private void execute(String sql) throws SQLException {
+        try (Connection connection = database.getDataSource().getConnection();
+             Statement stmt = connection.createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+}
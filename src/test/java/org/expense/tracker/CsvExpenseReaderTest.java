@@ -0,0 +1,66 @@
+package org.expense.tracker;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+
+public class CsvExpenseReaderTest {
+
+    private static final String BANK_EXPORT = """
+            date;amount;category;description
+            01.03.2024;-1.234,50;Rent;March
+            02.03.2024;2.500,00;Salary;March
+            03.03.2024;-12,99;Groceries;"Market; weekly"
+            """;
+
+    @Test
+    void signedExportSkipsCredits() throws IOException {
+        CsvExpenseReader reader = reader(BANK_EXPORT, CsvExpenseReader.AmountSigns.EXPENSES_NEGATIVE);
+
+        Assertions.assertEquals("""
+                2024-03-01,1234.50,"Rent","March",
+                2024-03-03,12.99,"Groceries","Market; weekly",
+                """, readAll(reader));
+        Assertions.assertEquals(2, reader.getAcceptedCount());
+        Assertions.assertEquals(1, reader.getRejectedCount());
+        Assertions.assertEquals("Line 3: credit of 2500.00 is not an expense", reader.getErrors().get(0));
+    }
+
+    @Test
+    void unsignedFileRejectsNegativeAmounts() throws IOException {
+        CsvExpenseReader reader = reader(BANK_EXPORT, CsvExpenseReader.AmountSigns.EXPENSES_POSITIVE);
+
+        Assertions.assertEquals("2024-03-02,2500.00,\"Salary\",\"March\",\n", readAll(reader));
+        Assertions.assertEquals(2, reader.getRejectedCount());
+    }
+
+    @Test
+    void amountsMustFitTheColumn() throws IOException {
+        CsvExpenseReader reader = reader("""
+                2024-01-01,999999999999.99,Big,
+                2024-01-02,1000000000000,Too big,
+                2024-01-03,5,Small,
+                """, CsvExpenseReader.AmountSigns.EXPENSES_POSITIVE);
+
+        Assertions.assertEquals("2024-01-01,999999999999.99,\"Big\",,\n2024-01-03,5.00,\"Small\",,\n", readAll(reader));
+        Assertions.assertEquals(1, reader.getRejectedCount());
+        Assertions.assertTrue(reader.getErrors().get(0).startsWith("Line 2: "));
+    }
+
+    private static CsvExpenseReader reader(String csv, CsvExpenseReader.AmountSigns amountSigns) {
+        return new CsvExpenseReader(new BufferedReader(new StringReader(csv)), amountSigns);
+    }
+
+    private static String readAll(CsvExpenseReader reader) throws IOException {
+        StringBuilder out = new StringBuilder();
+        char[] buffer = new char[16];
+        int read;
+        while ((read = reader.read(buffer, 0, buffer.length)) != -1) {
+            out.append(buffer, 0, read);
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,204 @@
+package org.expense.tracker;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+public class ExpenseWriteQueueTest {
+
+    @Test
+    void failedGroupDoesNotStopTheFlusher() throws Exception {
+        ExpenseDAO expenseDAO = Mockito.mock(ExpenseDAO.class);
+        Mockito.doThrow(new IllegalStateException("listener failed"))
+                .doNothing()
+                .when(expenseDAO).applyWrites(ArgumentMatchers.anyList());
+        ExpenseWriteQueue queue = new ExpenseWriteQueue(expenseDAO, true, Duration.ofMillis(5), 500);
+
+        CompletableFuture<Void> failing = queue.submit(ExpenseWrite.insert(1, expense("Dinner")));
+        ExecutionException error = Assertions.assertThrows(ExecutionException.class,
+                () -> failing.get(5, TimeUnit.SECONDS));
+        Assertions.assertInstanceOf(IllegalStateException.class, error.getCause());
+
+        CompletableFuture<Void> later = queue.submit(ExpenseWrite.insert(1, expense("Lunch")));
+        later.get(5, TimeUnit.SECONDS);
+
+        queue.shutdown();
+        // Neither write was retried on its own
+        Mockito.verify(expenseDAO, Mockito.times(2)).applyWrites(ArgumentMatchers.anyList());
+    }
+
+    @Test
+    void writesWithinTheIntervalShareOneGroup() throws Exception {
+        ExpenseDAO expenseDAO = Mockito.mock(ExpenseDAO.class);
+        List<List<ExpenseWrite>> groups = recordGroups(expenseDAO);
+        ExpenseWriteQueue queue = new ExpenseWriteQueue(expenseDAO, true, Duration.ofMillis(300), 500);
+
+        List<CompletableFuture<Void>> results = new ArrayList<>();
+        for (String description : List.of("Breakfast", "Lunch", "Dinner")) {
+            results.add(queue.submit(ExpenseWrite.insert(1, expense(description))));
+        }
+        CompletableFuture.allOf(results.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+
+        queue.shutdown();
+        Assertions.assertEquals(List.of(3), groups.stream().map(List::size).toList());
+    }
+
+    @Test
+    void fullGroupsAreFlushedWithoutWaitingForTheInterval() throws Exception {
+        ExpenseDAO expenseDAO = Mockito.mock(ExpenseDAO.class);
+        List<List<ExpenseWrite>> groups = recordGroups(expenseDAO);
+        ExpenseWriteQueue queue = new ExpenseWriteQueue(expenseDAO, true, Duration.ofSeconds(30), 2);
+
+        List<CompletableFuture<Void>> results = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            results.add(queue.submit(ExpenseWrite.insert(1, expense("Coffee " + i))));
+        }
+        // Well within the 30 second interval
+        CompletableFuture.allOf(results.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+
+        queue.shutdown();
+        Assertions.assertEquals(List.of(2, 2), groups.stream().map(List::size).toList());
+    }
+
+    @Test
+    void eachUsersWritesKeepTheirOrderAcrossGroups() throws Exception {
+        ExpenseDAO expenseDAO = Mockito.mock(ExpenseDAO.class);
+        List<List<ExpenseWrite>> groups = recordGroups(expenseDAO);
+        ExpenseWriteQueue queue = new ExpenseWriteQueue(expenseDAO, true, Duration.ofMillis(50), 3);
+
+        MainView.Expense rent = expense("Rent");
+        rent.setId(7);
+        List<ExpenseWrite> submitted = List.of(
+                ExpenseWrite.insert(1, expense("Lunch")),
+                ExpenseWrite.insert(2, expense("Fuel")),
+                ExpenseWrite.update(1, rent),
+                ExpenseWrite.delete(2, 8),
+                ExpenseWrite.delete(1, 7),
+                ExpenseWrite.insert(2, expense("Parking")),
+                ExpenseWrite.insert(1, expense("Dinner")));
+        List<CompletableFuture<Void>> results = new ArrayList<>();
+        for (ExpenseWrite write : submitted) {
+            results.add(queue.submit(write));
+        }
+        CompletableFuture.allOf(results.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+        queue.shutdown();
+
+        Assertions.assertTrue(groups.size() >= 3);
+        List<ExpenseWrite> applied = groups.stream().flatMap(List::stream).toList();
+        for (int userId : List.of(1, 2)) {
+            Assertions.assertEquals(ofUser(submitted, userId), ofUser(applied, userId));
+        }
+    }
+
+    @Test
+    void sqlFailureRetriesEachWriteOnItsOwn() throws Exception {
+        ExpenseDAO expenseDAO = Mockito.mock(ExpenseDAO.class);
+        List<List<ExpenseWrite>> groups = new CopyOnWriteArrayList<>();
+        ExpenseWrite bad = ExpenseWrite.delete(1, 99);
+        Mockito.doAnswer(invocation -> {
+            List<ExpenseWrite> group = List.copyOf(invocation.getArgument(0));
+            groups.add(group);
+            if (group.contains(bad)) {
+                throw new SQLException("constraint violated");
+            }
+            return null;
+        }).when(expenseDAO).applyWrites(ArgumentMatchers.anyList());
+        ExpenseWriteQueue queue = new ExpenseWriteQueue(expenseDAO, true, Duration.ofMillis(300), 500);
+
+        CompletableFuture<Void> before = queue.submit(ExpenseWrite.insert(1, expense("Lunch")));
+        CompletableFuture<Void> failing = queue.submit(bad);
+        CompletableFuture<Void> after = queue.submit(ExpenseWrite.insert(2, expense("Fuel")));
+
+        before.get(5, TimeUnit.SECONDS);
+        after.get(5, TimeUnit.SECONDS);
+        ExecutionException error = Assertions.assertThrows(ExecutionException.class,
+                () -> failing.get(5, TimeUnit.SECONDS));
+        Assertions.assertInstanceOf(SQLException.class, error.getCause());
+
+        queue.shutdown();
+        // The whole group once, then every write in a transaction of its own
+        Assertions.assertEquals(List.of(3, 1, 1, 1), groups.stream().map(List::size).toList());
+    }
+
+    @Test
+    void shutdownDrainsQueuedWrites() throws Exception {
+        ExpenseDAO expenseDAO = Mockito.mock(ExpenseDAO.class);
+        List<ExpenseWrite> applied = new CopyOnWriteArrayList<>();
+        CountDownLatch drainBlocked = new CountDownLatch(1);
+        Mockito.doAnswer(invocation -> {
+            // Hold the flusher in the drain until the test lets it go
+            drainBlocked.await();
+            applied.addAll(invocation.getArgument(0));
+            return null;
+        }).when(expenseDAO).applyWrites(ArgumentMatchers.anyList());
+        ExpenseWriteQueue queue = new ExpenseWriteQueue(expenseDAO, true, Duration.ofMillis(50), 500);
+
+        List<ExpenseWrite> submitted = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            submitted.add(ExpenseWrite.insert(1, expense("Snack " + i)));
+            queue.submit(submitted.get(i));
+        }
+        Thread shutdown = Thread.ofPlatform().start(() -> {
+            try {
+                queue.shutdown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        awaitWaiting(shutdown);
+
+        // Submitted while the queued writes are still being drained
+        ExpenseWrite duringDrain = ExpenseWrite.delete(1, 7);
+        submitted.add(duringDrain);
+        Thread submitter = Thread.ofPlatform().start(() -> queue.submit(duringDrain));
+        awaitWaiting(submitter);
+        drainBlocked.countDown();
+        shutdown.join();
+        submitter.join();
+
+        for (ExpenseWrite write : submitted) {
+            Assertions.assertTrue(write.getResult().isDone() && !write.getResult().isCompletedExceptionally());
+        }
+        Assertions.assertEquals(submitted, applied);
+
+        // After shutdown writes are applied right away on the caller's thread
+        Assertions.assertTrue(queue.submit(ExpenseWrite.insert(1, expense("Late"))).isDone());
+        Assertions.assertEquals(7, applied.size());
+    }
+
+    private static void awaitWaiting(Thread thread) throws InterruptedException {
+        while (thread.isAlive() && thread.getState() != Thread.State.WAITING) {
+            Thread.sleep(5);
+        }
+    }
+
+    private static List<List<ExpenseWrite>> recordGroups(ExpenseDAO expenseDAO) throws SQLException {
+        List<List<ExpenseWrite>> groups = new CopyOnWriteArrayList<>();
+        Mockito.doAnswer(invocation -> {
+            // The queue reuses its batch list, so keep a copy
+            groups.add(List.copyOf(invocation.getArgument(0)));
+            return null;
+        }).when(expenseDAO).applyWrites(ArgumentMatchers.anyList());
+        return groups;
+    }
+
+    private static List<ExpenseWrite> ofUser(List<ExpenseWrite> writes, int userId) {
+        return writes.stream().filter(write -> write.getUserId() == userId).toList();
+    }
+
+    private static MainView.Expense expense(String description) {
+        return new MainView.Expense(12_00, "Food", description, LocalDate.of(2025, 6, 1), false, "None");
+    }
+}
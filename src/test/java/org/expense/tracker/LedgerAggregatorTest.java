@@ -0,0 +1,66 @@
+package org.expense.tracker;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+
+public class LedgerAggregatorTest {
+
+    private static final String[] CATEGORIES = {"Food", "Rent", "Travel", null};
+    private static final String[] RECURRENCES = {"None", "Monthly", "Yearly"};
+
+    @Test
+    void parallelMetricsMatchSequential() {
+        Random random = new Random(7);
+        Ledger.Builder builder = new Ledger.Builder();
+        for (int i = 0; i < 200_000; i++) {
+            LocalDate date = LocalDate.of(2015, 1, 1).plusDays(random.nextInt(4000));
+            builder.add(date, 1 + random.nextInt(100_000), CATEGORIES[random.nextInt(CATEGORIES.length)],
+                    RECURRENCES[random.nextInt(RECURRENCES.length)]);
+        }
+        Ledger ledger = builder.build();
+        List<Income> income = List.of(new Income(2_500_00, LocalDate.of(2025, 6, 1)));
+        LocalDate currentMonth = LocalDate.of(2025, 6, 1);
+
+        LedgerAggregator aggregator = new LedgerAggregator(4, 0);
+        try {
+            DashboardMetrics expected = DashboardMetrics.compute(ledger, income, currentMonth, 12);
+            DashboardMetrics actual = DashboardMetrics.compute(aggregator, ledger, income, currentMonth, 12);
+
+            Assertions.assertEquals(1, aggregator.getParallelRuns());
+            Assertions.assertEquals(toString(expected.getMonthlyTotals()), toString(actual.getMonthlyTotals()));
+            Assertions.assertEquals(expected.getCurrentMonthCount(), actual.getCurrentMonthCount());
+        } finally {
+            aggregator.shutdown();
+        }
+    }
+
+    @Test
+    void smallLedgersStayOnTheCallingThread() {
+        LedgerAggregator aggregator = new LedgerAggregator(4, 1000);
+        try {
+            Ledger ledger = new Ledger.Builder().add(LocalDate.of(2025, 1, 1), 10_00, "Food", "None").build();
+            String thread = aggregator.aggregate(ledger, StringBuilder::new,
+                    (partial, fromRow, toRow) -> partial.append(Thread.currentThread().getName()),
+                    StringBuilder::append).toString();
+
+            Assertions.assertEquals(Thread.currentThread().getName(), thread);
+            Assertions.assertEquals(1, aggregator.getSequentialRuns());
+            Assertions.assertEquals(0, aggregator.getParallelRuns());
+        } finally {
+            aggregator.shutdown();
+        }
+    }
+
+    private static String toString(List<MonthlyTotal> totals) {
+        StringBuilder text = new StringBuilder();
+        for (MonthlyTotal total : totals) {
+            text.append(total.getMonth()).append(' ').append(total.getIncomeCents()).append(' ').append(total.getExpensesCents());
+            text.append('\n');
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,91 @@
+package org.expense.tracker;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.extension.AfterAllCallback;
+import org.junit.jupiter.api.extension.BeforeAllCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.postgresql.ds.PGSimpleDataSource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Runs the Flyway migrations into a throwaway schema of the database
+ * configured by DB_URL/DB_USER/DB_PASSWORD before a test class and drops the
+ * schema afterwards. The class is skipped when that database is unreachable.
+ * Register it as a static field with {@code @RegisterExtension}.
+ */
+public class MigratedSchema implements BeforeAllCallback, AfterAllCallback {
+
+    private static final String URL = System.getenv().getOrDefault("DB_URL", "jdbc:postgresql://localhost:5432/expenseTracker");
+    private static final String USER = System.getenv().getOrDefault("DB_USER", "postgres");
+    private static final String PASSWORD = System.getenv().getOrDefault("DB_PASSWORD", "faris123");
+
+    private final String schema;
+    private final String options;
+    private final PGSimpleDataSource dataSource = new PGSimpleDataSource();
+    private boolean reachable;
+
+    /**
+     * @param options extra server options for every connection once migrated,
+     *                e.g. {@code "-c enable_seqscan=off"}
+     */
+    public MigratedSchema(String schema, String options) {
+        this.schema = schema;
+        this.options = options;
+    }
+
+    public MigratedSchema(String schema) {
+        this(schema, "");
+    }
+
+    @Override
+    public void beforeAll(ExtensionContext context) {
+        dataSource.setUrl(URL);
+        dataSource.setUser(USER);
+        dataSource.setPassword(PASSWORD);
+        try {
+            dataSource.getConnection().close();
+        } catch (SQLException e) {
+            Assumptions.abort("No database available at " + URL);
+        }
+        reachable = true;
+
+        dropSchema();
+        Flyway.configure()
+                .dataSource(dataSource)
+                .schemas(schema)
+                .createSchemas(true)
+                .locations("classpath:db/migration")
+                .load()
+                .migrate();
+        // Extensions such as pg_trgm stay in public if the database already had them
+        dataSource.setOptions(("-c search_path=" + schema + ",public " + options).trim());
+    }
+
+    @Override
+    public void afterAll(ExtensionContext context) {
+        if (reachable) {
+            dropSchema();
+        }
+    }
+
+    public PGSimpleDataSource getDataSource() {
+        return dataSource;
+    }
+
+    public String getSchema() {
+        return schema;
+    }
+
+    private void dropSchema() {
+        try (Connection connection = dataSource.getConnection();
+             Statement stmt = connection.createStatement()) {
+            stmt.execute("DROP SCHEMA IF EXISTS " + schema + " CASCADE");
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package org.expense.tracker;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Compares summing amounts as doubles, the way the views used to, with
+ * summing long cents. Not a unit test; run it with
+ * {@code mvn -Pbenchmark test -DskipTests}.
+ *
+ * Prints the throughput of each variant and how far a running double total,
+ * as the balance chart kept it, drifts from the exact total.
+ */
+public class MoneyBenchmark {
+
+    private static final int ROWS = 1_000_000;
+    private static final int WARMUP_ROUNDS = 20;
+    private static final int MEASURED_ROUNDS = 50;
+
+    public static void main(String[] args) {
+        Random random = new Random(42);
+        long[] cents = new long[ROWS];
+        List<Double> boxedAmounts = new ArrayList<>(ROWS);
+        List<MainView.Expense> expenses = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            cents[i] = 1 + random.nextInt(100_000);
+            boxedAmounts.add(Money.toDouble(cents[i]));
+            expenses.add(new MainView.Expense(cents[i], "Food", null, LocalDate.of(2024, 1, 1), false, null));
+        }
+
+        System.out.println("Before: double amounts");
+        measure("boxed Double, mapToDouble().sum()",
+                () -> boxedAmounts.stream().mapToDouble(Double::doubleValue).sum());
+        double doubleSum = measure("boxed Double, running += total", () -> {
+            double total = 0;
+            for (Double amount : boxedAmounts) {
+                total += amount;
+            }
+            return total;
+        });
+
+        System.out.println("After: long cents");
+        measure("Expense objects, mapToLong(cents).sum()",
+                () -> expenses.stream().mapToLong(MainView.Expense::getAmountCents).sum());
+        long exact = measure("long[] cents, plain loop", () -> {
+            long total = 0;
+            for (long value : cents) {
+                total += value;
+            }
+            return total;
+        });
+
+        System.out.printf("exact total %s, running double total %.6f, drift %.6f%n",
+                Money.toPlainString(exact), doubleSum, doubleSum - Money.toDouble(exact));
+    }
+
+    private static <T> T measure(String name, Supplier<T> sum) {
+        T result = null;
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            result = sum.get();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            result = sum.get();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("  %-42s %8.1f M amounts/s%n", name, (double) ROWS * MEASURED_ROUNDS / seconds / 1e6);
+        return result;
+    }
+}
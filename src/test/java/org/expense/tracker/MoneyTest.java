@@ -0,0 +1,47 @@
+package org.expense.tracker;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Checks that summing long cents matches an exact decimal sum, and the
+ * conversions at the form and display boundaries. Throughput is compared by
+ * {@link MoneyBenchmark}.
+ */
+public class MoneyTest {
+
+    private static final int ROWS = 10_000;
+
+    @Test
+    void centsSumExactly() {
+        Random random = new Random(42);
+        List<MainView.Expense> expenses = new ArrayList<>(ROWS);
+        long exact = 0;
+        BigDecimal decimal = BigDecimal.ZERO;
+        for (int i = 0; i < ROWS; i++) {
+            long cents = 1 + random.nextInt(100_000);
+            expenses.add(new MainView.Expense(cents, "Food", null, LocalDate.of(2024, 1, 1), false, null));
+            exact += cents;
+            decimal = decimal.add(Money.toBigDecimal(cents));
+        }
+
+        Assertions.assertEquals(decimal, Money.toBigDecimal(exact));
+        Assertions.assertEquals(exact, expenses.stream().mapToLong(MainView.Expense::getAmountCents).sum());
+    }
+
+    @Test
+    void convertsAndFormatsToTheCent() {
+        Assertions.assertEquals(30, Money.toCents(0.1 + 0.2));
+        Assertions.assertEquals(268, Money.toCents(2.675));
+        Assertions.assertEquals(-1050, Money.toCents(new BigDecimal("-10.495")));
+        Assertions.assertEquals("-0.05", Money.toPlainString(-5));
+        Assertions.assertEquals("€-1234.50", Money.format(-123450));
+        Assertions.assertEquals("€7.00", Money.format(700));
+    }
+}
@@ -0,0 +1,117 @@
+package org.expense.tracker;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Archives a year through PartitionMaintenance and checks the summary tables
+ * still match the live ledger. Runs against a {@link MigratedSchema}.
+ */
+public class PartitionMaintenanceTest {
+
+    @RegisterExtension
+    static final MigratedSchema database = new MigratedSchema("partition_maintenance_check");
+
+    // Same grouping as the V5 backfill of expense_month_totals
+    private static final String MONTH_TOTALS_FROM_LEDGER = """
+            SELECT month,
+                   coalesce(sum(amount) FILTER (WHERE kind = 'none'), 0)::numeric(14, 2) AS one_off_total,
+                   coalesce(sum(amount) FILTER (WHERE kind = 'monthly'), 0)::numeric(14, 2) AS monthly_total,
+                   coalesce(sum(amount) FILTER (WHERE kind = 'yearly'), 0)::numeric(14, 2) AS yearly_total
+            FROM (
+                SELECT date_trunc('month', date)::date AS month, amount,
+                       CASE WHEN coalesce(lower(recurrence_type), 'none') = 'none' THEN 'none'
+                            WHEN lower(recurrence_type) = 'monthly' THEN 'monthly'
+                            ELSE 'yearly' END AS kind
+                FROM expenses
+            ) classified
+            GROUP BY month
+            ORDER BY month
+            """;
+    private static final String MONTH_TOTALS_FROM_SUMMARY = """
+            SELECT month, one_off_total, monthly_total, yearly_total
+            FROM expense_month_totals
+            WHERE one_off_count + monthly_count + yearly_count > 0
+            ORDER BY month
+            """;
+
+    @Test
+    void archivingKeepsRecurringExpensesThatCrossIntoKeptYears() throws SQLException {
+        int archivedYear = LocalDate.now().getYear() - 3;
+        RoutingDataSource routing = new RoutingDataSource(database.getDataSource(), List.of(), Duration.ZERO);
+        ExpenseDAO dao = new ExpenseDAO(routing, new StatementCache(16), List.of(), 500);
+
+        int userId = createUser();
+        // A monthly subscription from November runs on into the next year, the dinner stays in its year
+        MainView.Expense subscription = new MainView.Expense(15_00, "Media", "Streaming",
+                LocalDate.of(archivedYear, 11, 20), true, "Monthly");
+        MainView.Expense dinner = new MainView.Expense(40_00, "Food", "Dinner",
+                LocalDate.of(archivedYear, 12, 31), false, "None");
+        MainView.Expense lunch = new MainView.Expense(12_00, "Food", "Lunch",
+                LocalDate.of(archivedYear + 1, 1, 2), false, "None");
+        dao.applyWrites(List.of(ExpenseWrite.insert(userId, subscription), ExpenseWrite.insert(userId, dinner),
+                ExpenseWrite.insert(userId, lunch)));
+
+        // First give the back-dated years partitions of their own, then archive the oldest one
+        new PartitionMaintenance(routing, new StatementCache(16), new AggregateCache(10, Duration.ofMinutes(5)),
+                List.of(), 2, 0).maintain();
+        Assertions.assertEquals(1, count("SELECT count(*) FROM expenses_" + archivedYear + " WHERE recurring"));
+        new PartitionMaintenance(routing, new StatementCache(16), new AggregateCache(10, Duration.ofMinutes(5)),
+                List.of(), 2, LocalDate.now().getYear() - archivedYear).maintain();
+
+        Assertions.assertEquals(1, count("SELECT count(*) FROM expenses_archive_" + archivedYear));
+        Assertions.assertEquals(1, count("SELECT count(*) FROM expenses_default WHERE description = 'Streaming'"));
+        Assertions.assertEquals(query(MONTH_TOTALS_FROM_LEDGER), query(MONTH_TOTALS_FROM_SUMMARY));
+
+        // The next run leaves the kept subscription where it is
+        new PartitionMaintenance(routing, new StatementCache(16), new AggregateCache(10, Duration.ofMinutes(5)),
+                List.of(), 2, LocalDate.now().getYear() - archivedYear).maintain();
+        Assertions.assertEquals(0, count("SELECT count(*) FROM pg_tables WHERE schemaname = '" + database.getSchema()
+                + "' AND tablename = 'expenses_" + archivedYear + "'"));
+        Assertions.assertEquals(query(MONTH_TOTALS_FROM_LEDGER), query(MONTH_TOTALS_FROM_SUMMARY));
+    }
+
+    private int createUser() throws SQLException {
+        String sql = "INSERT INTO users (username, password_hash, email) VALUES ('archiver', 'x', 'archiver@example.com') RETURNING id";
+        try (Connection connection = database.getDataSource().getConnection();
+             Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    private long count(String sql) throws SQLException {
+        try (Connection connection = database.getDataSource().getConnection();
+             Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    private String query(String sql) throws SQLException {
+        StringBuilder text = new StringBuilder();
+        try (Connection connection = database.getDataSource().getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                for (int column = 1; column <= rs.getMetaData().getColumnCount(); column++) {
+                    text.append(rs.getString(column)).append(' ');
+                }
+                text.append('\n');
+            }
+        }
+        return text.toString();
+    }
+}
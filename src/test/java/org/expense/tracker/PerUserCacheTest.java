@@ -0,0 +1,57 @@
+package org.expense.tracker;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+public class PerUserCacheTest {
+
+    @Test
+    void patchesKeepValuesAndDropThoseThatCannotTakeTheWrite() {
+        PerUserCache<String, AtomicLong> cache = new PerUserCache<>(10, 2);
+        AtomicLong small = cache.get(1, "small", value -> true, () -> new AtomicLong(1));
+        AtomicLong large = cache.get(1, "large", value -> true, () -> new AtomicLong(100));
+
+        // Only the small value can take the write
+        cache.patch(1, (key, value) -> value.addAndGet(10) < 50);
+
+        Assertions.assertSame(small, cache.get(1, "small", value -> true, () -> new AtomicLong(-1)));
+        Assertions.assertEquals(11, small.get());
+        Assertions.assertNotSame(large, cache.get(1, "large", value -> true, () -> new AtomicLong(110)));
+        Assertions.assertEquals(1, cache.getHits());
+        Assertions.assertEquals(3, cache.getBuilds());
+        Assertions.assertEquals(1, cache.getPatches());
+        Assertions.assertEquals(1, cache.getInvalidations());
+    }
+
+    @Test
+    void doesNotKeepBuildsThatRacedAPatch() {
+        PerUserCache<String, String> cache = new PerUserCache<>(10, 1);
+        cache.get(1, "other", value -> true, () -> "other");
+
+        String stale = cache.get(1, "sketch", value -> true, () -> {
+            // A write commits while the old data is being read
+            cache.patch(1, (key, value) -> true);
+            return "before write";
+        });
+
+        Assertions.assertEquals("before write", stale);
+        Assertions.assertEquals("after write", cache.get(1, "sketch", value -> true, () -> "after write"));
+    }
+
+    @Test
+    void evictsAndCountsEveryInvalidation() {
+        PerUserCache<String, String> cache = new PerUserCache<>(1, 1);
+        cache.get(1, "rollup", value -> true, () -> "user 1");
+        cache.get(2, "rollup", value -> true, () -> "user 2");
+        Assertions.assertEquals(1, cache.getCachedUsers());
+        Assertions.assertEquals("reloaded", cache.get(1, "rollup", value -> true, () -> "reloaded"));
+
+        cache.invalidate(3);
+        cache.invalidate(1);
+        cache.invalidateAll();
+        Assertions.assertEquals(0, cache.getCachedUsers());
+        Assertions.assertEquals(2, cache.getInvalidations());
+    }
+}
@@ -0,0 +1,169 @@
+package org.expense.tracker;
+
+import com.vaadin.flow.server.VaadinSession;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.mockito.Mockito;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Runs the DAO's read queries against the migrated schema with sequential
+ * scans disabled and fails if any plan still needs one, which means no index
+ * matches the query. Runs against a {@link MigratedSchema}.
+ */
+public class QueryPlanTest {
+
+    @RegisterExtension
+    static final MigratedSchema database = new MigratedSchema("query_plan_check", "-c enable_seqscan=off");
+
+    private static final Pattern SORT_NODE = Pattern.compile("(?m)^\\s*(->\\s*)?(Incremental )?Sort\\s+\\(");
+
+    private final Map<String, String> plans = new LinkedHashMap<>();
+    private ExpenseDAO dao;
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setId(1);
+        VaadinSession session = Mockito.mock(VaadinSession.class);
+        Mockito.when(session.getAttribute("current_user")).thenReturn(user);
+        VaadinSession.setCurrent(session);
+
+        dao = new ExpenseDAO(new RoutingDataSource(database.getDataSource(), List.of(), Duration.ZERO), new ExplainingStatementCache(),
+                List.of(new ExpenseRollups(10, 2)), 500);
+    }
+
+    @Test
+    void expenseGridPagesUseIndexOrder() {
+        MainView.Expense anchor = new MainView.Expense(10_00, "Food", "Lunch", LocalDate.of(2024, 3, 1), false, "None");
+        anchor.setId(42);
+        for (String sort : List.of("date", "amount", "category")) {
+            dao.getExpensesPage(sort, true, null, 0, 50);
+            dao.getExpensesPage(sort, false, anchor, 10, 50);
+        }
+
+        assertNoSequentialScans();
+        // Merge Append over the partitions prints a Sort Key too, only an actual Sort node counts
+        plans.forEach((sql, plan) -> Assertions.assertFalse(SORT_NODE.matcher(plan).find(),
+                () -> "Page query sorts instead of reading the index in order:\n" + sql + "\n" + plan));
+    }
+
+    @Test
+    void aggregatesUseIndexes() {
+        LocalDate from = LocalDate.of(2024, 1, 1);
+        LocalDate to = LocalDate.of(2024, 12, 1);
+        dao.getMonthlyTotals(from, to);
+        dao.getCategoryTotals();
+        dao.getCategoryTotals(from, to);
+        dao.getCalculatedBalance();
+        dao.getBalanceAsOf(to);
+        dao.getRunningBalance(to);
+        dao.getFirstActivityMonth();
+        dao.loadLedger(1);
+
+        assertNoSequentialScans();
+    }
+
+    @Test
+    void incomeAndBalanceLookupsUseIndexes() {
+        dao.getAllIncome();
+        dao.getIncomeForMonth(LocalDate.of(2024, 1, 1));
+        dao.getCurrentBankBalance();
+
+        assertNoSequentialScans();
+    }
+
+    @Test
+    void searchUsesTrigramIndex() {
+        dao.searchExpenses("groceries", 0, 50);
+        dao.searchExpenses("100%_off", 50, 50);
+
+        assertNoSequentialScans();
+    }
+
+    @Test
+    void dateBoundedQueriesPrunePartitions() {
+        // The migration creates partitions for this year and the next
+        int year = LocalDate.now().getYear();
+        LocalDate from = LocalDate.of(year, 1, 1);
+        LocalDate to = LocalDate.of(year, 12, 1);
+        dao.getMonthlyTotals(from, to);
+        dao.getCategoryTotals(from, to);
+
+        MainView.Expense anchor = new MainView.Expense(10_00, "Food", "Lunch", LocalDate.of(year, 3, 1), false, "None");
+        anchor.setId(42);
+        dao.getExpensesPage("date", true, anchor, 0, 50);
+
+        Assertions.assertFalse(plans.isEmpty(), "No queries were captured");
+        plans.forEach((sql, plan) -> Assertions.assertFalse(plan.contains("expenses_" + (year + 1)),
+                () -> "Query reads a partition outside its date range:\n" + sql + "\n" + plan));
+    }
+
+    private void assertNoSequentialScans() {
+        Assertions.assertFalse(plans.isEmpty(), "No queries were captured");
+        plans.forEach((sql, plan) -> Assertions.assertFalse(plan.contains("Seq Scan"),
+                () -> "Query falls back to a sequential scan:\n" + sql + "\n" + plan));
+    }
+
+    /**
+     * Hands the DAO a statement that also runs EXPLAIN with the same
+     * parameters right before the real query executes.
+     */
+    private class ExplainingStatementCache extends StatementCache {
+
+        ExplainingStatementCache() {
+            super(0);
+        }
+
+        @Override
+        public PreparedStatement prepare(Connection connection, String sql) throws SQLException {
+            PreparedStatement real = connection.prepareStatement(sql);
+            String head = sql.stripLeading().toUpperCase();
+            if (!head.startsWith("SELECT") && !head.startsWith("WITH")) {
+                return real;
+            }
+            PreparedStatement explain = connection.prepareStatement("EXPLAIN " + sql);
+
+            return (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> {
+                        try {
+                            if (method.getName().startsWith("set") && args != null && args.length > 0 && args[0] instanceof Integer) {
+                                method.invoke(explain, args);
+                            } else if (method.getName().equals("executeQuery")) {
+                                plans.put(sql, readPlan(explain));
+                            } else if (method.getName().equals("close")) {
+                                explain.close();
+                            }
+                            return method.invoke(real, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+        }
+
+        private String readPlan(PreparedStatement explain) throws SQLException {
+            List<String> lines = new ArrayList<>();
+            try (ResultSet rs = explain.executeQuery()) {
+                while (rs.next()) {
+                    lines.add(rs.getString(1));
+                }
+            }
+            return String.join("\n", lines);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package org.expense.tracker;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+/**
+ * Checks the closed-form answers of {@link Recurrence} against walking the
+ * months one by one.
+ */
+public class RecurrenceTest {
+
+    @Test
+    void readsStoredRecurrenceTypes() {
+        Assertions.assertEquals(Recurrence.NONE, Recurrence.of(null));
+        Assertions.assertEquals(Recurrence.NONE, Recurrence.of("None"));
+        Assertions.assertEquals(Recurrence.MONTHLY, Recurrence.of("monthly"));
+        Assertions.assertEquals(Recurrence.YEARLY, Recurrence.of("Annually"));
+        Assertions.assertEquals(Recurrence.YEARLY, Recurrence.of("Yearly"));
+    }
+
+    @Test
+    void occurrencesMatchMonthByMonth() {
+        LocalDate start = LocalDate.of(2022, 5, 17);
+        LocalDate first = LocalDate.of(2021, 1, 1);
+        for (Recurrence recurrence : Recurrence.values()) {
+            for (int fromOffset = 0; fromOffset < 60; fromOffset++) {
+                for (int length = 0; length < 40; length++) {
+                    LocalDate from = first.plusMonths(fromOffset);
+                    LocalDate to = from.plusMonths(length);
+                    long expected = 0;
+                    for (LocalDate month = from; !month.isAfter(to); month = month.plusMonths(1)) {
+                        if (recurrence.appliesTo(start, month)) {
+                            expected++;
+                        }
+                    }
+                    Assertions.assertEquals(expected, recurrence.occurrences(start, from, to),
+                            recurrence + " from " + from + " to " + to);
+                }
+            }
+        }
+    }
+
+    @Test
+    void appliesOnlyFromTheStartMonth() {
+        LocalDate start = LocalDate.of(2024, 3, 31);
+        Assertions.assertTrue(Recurrence.NONE.appliesTo(start, LocalDate.of(2024, 3, 1)));
+        Assertions.assertFalse(Recurrence.NONE.appliesTo(start, LocalDate.of(2025, 3, 1)));
+        Assertions.assertFalse(Recurrence.MONTHLY.appliesTo(start, LocalDate.of(2024, 2, 1)));
+        Assertions.assertTrue(Recurrence.MONTHLY.appliesTo(start, LocalDate.of(2030, 11, 1)));
+        Assertions.assertTrue(Recurrence.YEARLY.appliesTo(start, LocalDate.of(2027, 3, 1)));
+        Assertions.assertFalse(Recurrence.YEARLY.appliesTo(start, LocalDate.of(2027, 4, 1)));
+        Assertions.assertFalse(Recurrence.YEARLY.appliesTo(start, LocalDate.of(2023, 3, 1)));
+    }
+
+    @Test
+    void sumsOverLongRanges() {
+        LocalDate start = LocalDate.of(2000, 1, 1);
+        LocalDate to = LocalDate.of(2099, 12, 1);
+        Assertions.assertEquals(1200 * 10_00L, Recurrence.MONTHLY.sum(10_00, start, start, to));
+        Assertions.assertEquals(100 * 10_00L, Recurrence.YEARLY.sum(10_00, start, start, to));
+        Assertions.assertEquals(10_00L, Recurrence.NONE.sum(10_00, start, start, to));
+    }
+}
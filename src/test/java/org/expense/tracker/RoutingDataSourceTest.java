@@ -0,0 +1,70 @@
+package org.expense.tracker;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+
+public class RoutingDataSourceTest {
+
+    private final Connection primaryConnection = Mockito.mock(Connection.class);
+    private final Connection firstReplicaConnection = Mockito.mock(Connection.class);
+    private final Connection secondReplicaConnection = Mockito.mock(Connection.class);
+    private final DataSource primary = dataSource(primaryConnection);
+    private final DataSource firstReplica = dataSource(firstReplicaConnection);
+    private final DataSource secondReplica = dataSource(secondReplicaConnection);
+
+    @Test
+    void readsAlternateBetweenReplicasAndWritesUseThePrimary() throws SQLException {
+        RoutingDataSource routing = new RoutingDataSource(primary, List.of(firstReplica, secondReplica), Duration.ofSeconds(5));
+
+        Assertions.assertSame(firstReplicaConnection, routing.getReadConnection());
+        Assertions.assertSame(secondReplicaConnection, routing.getReadConnection());
+        Assertions.assertSame(firstReplicaConnection, routing.getReadConnection());
+        Assertions.assertSame(primaryConnection, routing.getConnection());
+    }
+
+    @Test
+    void failedReplicaIsSkippedAndReadsFallBackToThePrimary() throws SQLException {
+        DataSource failing = Mockito.mock(DataSource.class);
+        Mockito.when(failing.getConnection()).thenThrow(new SQLException("replica down"));
+        RoutingDataSource routing = new RoutingDataSource(primary, List.of(failing, secondReplica), Duration.ofSeconds(5));
+
+        for (int i = 0; i < 4; i++) {
+            Assertions.assertSame(secondReplicaConnection, routing.getReadConnection());
+        }
+        // Tried once, then left alone for the retry interval
+        Mockito.verify(failing, Mockito.times(1)).getConnection();
+
+        RoutingDataSource noReplicaLeft = new RoutingDataSource(primary, List.of(failing), Duration.ofSeconds(5));
+        Assertions.assertSame(primaryConnection, noReplicaLeft.getReadConnection());
+        Assertions.assertSame(primaryConnection, noReplicaLeft.getReadConnection());
+    }
+
+    @Test
+    void writersReadTheirWritesFromThePrimaryUntilTheWindowPasses() throws SQLException, InterruptedException {
+        RoutingDataSource routing = new RoutingDataSource(primary, List.of(firstReplica), Duration.ofMillis(200));
+
+        routing.recordWrite(1);
+        Assertions.assertSame(primaryConnection, routing.getReadConnection(1));
+        Assertions.assertSame(firstReplicaConnection, routing.getReadConnection(2));
+
+        Thread.sleep(300);
+        Assertions.assertSame(firstReplicaConnection, routing.getReadConnection(1));
+    }
+
+    private static DataSource dataSource(Connection connection) {
+        DataSource dataSource = Mockito.mock(DataSource.class);
+        try {
+            Mockito.when(dataSource.getConnection()).thenReturn(connection);
+        } catch (SQLException e) {
+            throw new AssertionError(e);
+        }
+        return dataSource;
+    }
+}
@@ -0,0 +1,144 @@
+package org.expense.tracker;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class SpaceSavingSketchTest {
+
+    @Test
+    void boundedSketchKeepsTheHeavyHitters() {
+        Random random = new Random(11);
+        SpaceSavingSketch sketch = new SpaceSavingSketch(16);
+        Map<String, Long> exact = new HashMap<>();
+        for (int i = 0; i < 100_000; i++) {
+            // A few heavy categories among a long tail of light ones
+            String item = random.nextInt(4) == 0 ? "heavy" + random.nextInt(3) : "light" + random.nextInt(5_000);
+            long cents = 1 + random.nextInt(10_000);
+            sketch.add(item, cents);
+            exact.merge(item, cents, Long::sum);
+        }
+
+        String top = exact.entrySet().stream().max(Map.Entry.comparingByValue()).orElseThrow().getKey();
+        Assertions.assertFalse(sketch.isExact());
+        Assertions.assertEquals(16, sketch.size());
+        Assertions.assertEquals(top, sketch.getTop());
+        for (CategoryTotal total : sketch.getTop(3)) {
+            Assertions.assertTrue(total.getCategory().startsWith("heavy"));
+            long actual = exact.get(total.getCategory());
+            Assertions.assertTrue(total.getTotalCents() >= actual);
+            Assertions.assertTrue(total.getTotalCents() <= actual + sketch.getMaxError());
+        }
+    }
+
+    @Test
+    void removalsMoveTheTop() {
+        SpaceSavingSketch sketch = new SpaceSavingSketch(Integer.MAX_VALUE);
+        sketch.add("Rent", 900_00);
+        sketch.add("Food", 400_00);
+        sketch.add("Food", 300_00);
+        Assertions.assertEquals("Rent", sketch.getTop());
+
+        sketch.add("Rent", -900_00);
+        Assertions.assertEquals("Food", sketch.getTop());
+        Assertions.assertEquals(1, sketch.size());
+        Assertions.assertTrue(sketch.isExact());
+    }
+
+    @Test
+    void removalsAreRefusedAfterAnEviction() {
+        SpaceSavingSketch sketch = new SpaceSavingSketch(2);
+        sketch.add("Rent", 900_00);
+        sketch.add("Food", 50_00);
+        // Travel takes over Food's counter, so Travel's 60 may partly be Food's 50
+        sketch.add("Travel", 10_00);
+        Assertions.assertFalse(sketch.isExact());
+
+        Assertions.assertFalse(sketch.remove("Rent", 900_00));
+        Assertions.assertFalse(sketch.add("Food", -50_00));
+        Assertions.assertEquals("Rent", sketch.getTop());
+        Assertions.assertEquals(900_00, sketch.getTop(1).get(0).getTotalCents());
+    }
+
+    @Test
+    void exactRemovalsKeepNegativeTotals() {
+        SpaceSavingSketch sketch = new SpaceSavingSketch(Integer.MAX_VALUE);
+        Assertions.assertTrue(sketch.add("Food", -5_00));
+        sketch.add("Food", 10_00);
+        Assertions.assertEquals(5_00, sketch.getTop(1).get(0).getTotalCents());
+    }
+
+    @Test
+    void deleteAfterEvictionRebuildsTheSketch() {
+        // Four categories in a three-counter sketch, so it is past its first eviction
+        Ledger.Builder builder = new Ledger.Builder()
+                .add(LocalDate.of(2025, 6, 1), 500_00, "Rent", "None")
+                .add(LocalDate.of(2025, 6, 2), 300_00, "Food", "None")
+                .add(LocalDate.of(2025, 6, 3), 200_00, "Travel", "None")
+                .add(LocalDate.of(2025, 6, 4), 150_00, "Books", "None");
+        TopCategories patched = new TopCategories(3, 1, 10);
+        Ledger before = builder.build();
+        Assertions.assertEquals("Rent", patched.getTopCategory(1, null, () -> before));
+
+        // Deleting the rent leaves Food on top, which a bounded sketch cannot work out
+        ExpenseSummaryChange change = new ExpenseSummaryChange();
+        change.add(LocalDate.of(2025, 6, 1), "Rent", "None", -500_00, -1);
+        patched.expensesChanged(1, change);
+        Assertions.assertEquals(1, patched.getInvalidations());
+
+        Ledger after = new Ledger.Builder()
+                .add(LocalDate.of(2025, 6, 2), 300_00, "Food", "None")
+                .add(LocalDate.of(2025, 6, 3), 200_00, "Travel", "None")
+                .add(LocalDate.of(2025, 6, 4), 150_00, "Books", "None")
+                .build();
+        Assertions.assertEquals("Food", patched.getTopCategory(1, null, () -> after));
+        Assertions.assertEquals(2, patched.getBuilds());
+    }
+
+    @Test
+    void patchedTopCategoriesMatchRebuild() {
+        LocalDate month = LocalDate.of(2025, 6, 1);
+        Ledger.Builder builder = new Ledger.Builder()
+                .add(LocalDate.of(2025, 6, 3), 120_00, "Food", "None")
+                .add(LocalDate.of(2025, 6, 9), 80_00, "Travel", "None")
+                .add(LocalDate.of(2024, 6, 1), 100_00, "Insurance", "Yearly");
+        TopCategories patched = new TopCategories(64, 1000, 10);
+        Ledger before = builder.build();
+        Assertions.assertEquals("Food", patched.getTopCategory(1, month, () -> before));
+        Assertions.assertEquals("Food", patched.getTopCategory(1, null, () -> before));
+
+        // A monthly rent starting in May counts in June, a removed dinner takes Food back down
+        ExpenseSummaryChange change = new ExpenseSummaryChange();
+        change.add(LocalDate.of(2025, 5, 1), "Rent", "Monthly", 150_00, 1);
+        change.add(LocalDate.of(2025, 6, 3), "Food", "None", -60_00, -1);
+        patched.expensesChanged(1, change);
+
+        Ledger after = new Ledger.Builder()
+                .add(LocalDate.of(2025, 6, 3), 60_00, "Food", "None")
+                .add(LocalDate.of(2025, 6, 9), 80_00, "Travel", "None")
+                .add(LocalDate.of(2024, 6, 1), 100_00, "Insurance", "Yearly")
+                .add(LocalDate.of(2025, 5, 1), 150_00, "Rent", "Monthly")
+                .build();
+        TopCategories rebuilt = new TopCategories(64, 1000, 10);
+        for (LocalDate window : new LocalDate[]{month, null}) {
+            Assertions.assertEquals(toString(rebuilt.getTopCategories(1, window, 10, () -> after)),
+                    toString(patched.getTopCategories(1, window, 10, () -> {
+                        throw new AssertionError("patched sketches should not be rebuilt");
+                    })));
+        }
+        Assertions.assertEquals("Rent", patched.getTopCategory(1, month, () -> after));
+    }
+
+    private static String toString(List<CategoryTotal> totals) {
+        StringBuilder text = new StringBuilder();
+        for (CategoryTotal total : totals) {
+            text.append(total.getCategory()).append(' ').append(total.getTotalCents()).append('\n');
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,120 @@
+package org.expense.tracker;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+
+public class TimeRollupTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 6, 15);
+    private static final String[] RECURRENCES = {"None", "None", "Monthly", "Yearly"};
+
+    @Test
+    void everyResolutionAddsUpToTheSameTotals() {
+        Ledger ledger = randomLedger(new Random(3), 5_000).build();
+        TimeRollup rollup = TimeRollup.build(ledger, List.of(), TODAY, 2);
+        // A Monday 1 January to a Sunday 31 December, so weeks line up with the years too
+        LocalDate from = LocalDate.of(2024, 1, 1);
+        LocalDate to = LocalDate.of(2028, 12, 31);
+
+        long expected = total(rollup.getBuckets(TimeRollup.Resolution.DAY, from, to));
+        for (TimeRollup.Resolution resolution : TimeRollup.Resolution.values()) {
+            Assertions.assertEquals(expected, total(rollup.getBuckets(resolution, from, to)), resolution.name());
+        }
+
+        // Month buckets agree with the month-level aggregation
+        DashboardMetrics metrics = DashboardMetrics.compute(ledger, List.of(), TODAY, 12);
+        List<TimeBucket> months = rollup.getBuckets(TimeRollup.Resolution.MONTH, TODAY.minusMonths(11), TODAY);
+        for (int i = 0; i < 12; i++) {
+            Assertions.assertEquals(metrics.getMonthlyTotals().get(i).getExpensesCents(), months.get(i).getExpensesCents());
+        }
+    }
+
+    @Test
+    void patchedRollupMatchesRebuild() {
+        Random random = new Random(5);
+        Ledger.Builder before = randomLedger(random, 2_000);
+        TimeRollup patched = TimeRollup.build(before.build(), List.of(), TODAY, 2);
+
+        ExpenseSummaryChange change = new ExpenseSummaryChange();
+        change.add(LocalDate.of(2023, 1, 31), "Rent", "Monthly", 800_00, 1);
+        change.add(LocalDate.of(2024, 2, 29), "Insurance", "Yearly", 300_00, 1);
+        change.add(LocalDate.of(2025, 6, 1), "Food", "None", 12_34, 1);
+        change.add(LocalDate.of(2025, 6, 1), "Food", "None", -12_34, -1);
+        Assertions.assertTrue(change.applyTo(patched));
+
+        before.add(LocalDate.of(2023, 1, 31), 800_00, "Rent", "Monthly");
+        before.add(LocalDate.of(2024, 2, 29), 300_00, "Insurance", "Yearly");
+        TimeRollup rebuilt = TimeRollup.build(before.build(), List.of(), TODAY, 2);
+
+        LocalDate from = patched.getFirstDay();
+        LocalDate to = patched.getLastDay();
+        for (TimeRollup.Resolution resolution : TimeRollup.Resolution.values()) {
+            List<TimeBucket> expected = rebuilt.getBuckets(resolution, from, to);
+            List<TimeBucket> actual = patched.getBuckets(resolution, from, to);
+            Assertions.assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                Assertions.assertEquals(expected.get(i).getExpensesCents(), actual.get(i).getExpensesCents(),
+                        resolution + " " + expected.get(i).getStart());
+            }
+        }
+
+        // Days before the covered years cannot be patched in
+        ExpenseSummaryChange early = new ExpenseSummaryChange();
+        early.add(patched.getFirstDay().minusDays(1), "Food", "None", 5_00, 1);
+        Assertions.assertFalse(early.applyTo(patched));
+    }
+
+    @Test
+    void readsRecurringExpensesBeyondTheHorizon() {
+        Ledger ledger = new Ledger.Builder().add(LocalDate.of(2025, 1, 10), 800_00, "Rent", "Monthly").build();
+        LocalDate from = LocalDate.of(2031, 1, 1);
+        LocalDate to = LocalDate.of(2031, 3, 31);
+
+        TimeRollup rollup = TimeRollup.build(ledger, List.of(), TODAY, 2, to);
+        Assertions.assertEquals(LocalDate.of(2031, 12, 31), rollup.getLastDay());
+        for (TimeBucket month : rollup.getBuckets(TimeRollup.Resolution.MONTH, from, to)) {
+            Assertions.assertEquals(800_00, month.getExpensesCents(), month.getStart().toString());
+        }
+
+        // A cached rollup is rebuilt once a read reaches past it, even without a horizon
+        ExpenseRollups rollups = new ExpenseRollups(10, 0);
+        LocalDate today = LocalDate.now();
+        rollups.get(1, today, () -> ledger, List::of);
+        rollups.get(1, today, () -> ledger, List::of);
+        TimeRollup extended = rollups.get(1, today.plusYears(5), () -> ledger, List::of);
+        Assertions.assertFalse(extended.getLastDay().isBefore(today.plusYears(5)));
+        Assertions.assertEquals(1, rollups.getHits());
+        Assertions.assertEquals(2, rollups.getBuilds());
+    }
+
+    @Test
+    void picksTheFinestResolutionThatFits() {
+        LocalDate from = LocalDate.of(2025, 1, 1);
+        Assertions.assertEquals(TimeRollup.Resolution.DAY, TimeRollup.Resolution.finestFor(from, from.plusDays(59), 60));
+        Assertions.assertEquals(TimeRollup.Resolution.WEEK, TimeRollup.Resolution.finestFor(from, from.plusMonths(6), 60));
+        Assertions.assertEquals(TimeRollup.Resolution.MONTH, TimeRollup.Resolution.finestFor(from, from.plusYears(3), 60));
+        Assertions.assertEquals(TimeRollup.Resolution.QUARTER, TimeRollup.Resolution.finestFor(from, from.plusYears(10), 60));
+        Assertions.assertEquals(TimeRollup.Resolution.YEAR, TimeRollup.Resolution.finestFor(from, from.plusYears(40), 60));
+    }
+
+    private static Ledger.Builder randomLedger(Random random, int rows) {
+        Ledger.Builder builder = new Ledger.Builder();
+        for (int i = 0; i < rows; i++) {
+            LocalDate date = LocalDate.of(2020, 1, 1).plusDays(random.nextInt(2200));
+            builder.add(date, 1 + random.nextInt(50_000), "Food", RECURRENCES[random.nextInt(RECURRENCES.length)]);
+        }
+        return builder;
+    }
+
+    private static long total(List<TimeBucket> buckets) {
+        long total = 0;
+        for (TimeBucket bucket : buckets) {
+            total += bucket.getExpensesCents();
+        }
+        return total;
+    }
+}